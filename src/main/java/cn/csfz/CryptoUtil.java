@@ -4,6 +4,8 @@ import cn.csfz.crypto.ECKeyUtil;
 import cn.csfz.crypto.SecureUtil;
 import cn.csfz.crypto.asymmetric.KeyType;
 import cn.csfz.crypto.asymmetric.SM2;
+import cn.csfz.crypto.asymmetric.sm2.SM2KeyCache;
+import cn.csfz.crypto.asymmetric.sm2.SM2KeyPairPool;
 import javafx.util.Pair;
 import org.bouncycastle.util.encoders.Base64;
 
@@ -13,38 +15,90 @@ import java.security.PublicKey;
 
 public class CryptoUtil {
 
+    /**
+     * 已解析密钥的缓存，相同密钥字符串只解析一次，以密钥字符串的SM3摘要为键
+     */
+    private static final SM2KeyCache KEY_CACHE = new SM2KeyCache(256);
+    private static volatile boolean keyCacheEnabled = true;
+
     public static String sign(String data,String privateKeyStr)
     {
-        SM2 sm2 =new SM2();
-        sm2.setPrivateKeyParams(ECKeyUtil.decodePrivateKeyParams(SecureUtil.decode(privateKeyStr)));
+        SM2 sm2 = getPrivate(privateKeyStr);
         return new String(Base64.encode(sm2.sign(data.getBytes())));
     }
 
     public static boolean verify(String decrypt, String sign ,String publicKeyStr)
     {
-        SM2 sm2 =new SM2();
-        sm2.setPublicKeyParams(ECKeyUtil.decodePublicKeyParams(SecureUtil.decode(publicKeyStr)));
+        SM2 sm2 = getPublic(publicKeyStr);
         return sm2.verify(decrypt.getBytes(),Base64.decode(sign.getBytes()));
     }
 
     public static String encrypt(String data,String publicKeyStr)
     {
-        SM2 sm2 =new SM2();
-        sm2.setPublicKeyParams(ECKeyUtil.decodePublicKeyParams(SecureUtil.decode(publicKeyStr)));
+        SM2 sm2 = getPublic(publicKeyStr);
         return new String(Base64.encode(sm2.encrypt(data.getBytes(), KeyType.PublicKey)));
     }
 
     public static String decrypt(String encrypt,String privateKeyStr)
     {
-        SM2 sm2 =new SM2();
-        sm2.setPrivateKeyParams(ECKeyUtil.decodePrivateKeyParams(SecureUtil.decode(privateKeyStr)));
+        SM2 sm2 = getPrivate(privateKeyStr);
         byte[] decrypt = sm2.decrypt(Base64.decode(encrypt), KeyType.PrivateKey);
         return new String(decrypt);
     }
 
+    /**
+     * 清空已解析密钥的缓存
+     */
+    public static void clearKeyCache()
+    {
+        KEY_CACHE.clear();
+    }
+
+    /**
+     * 设置是否缓存已解析的密钥，默认开启，关闭时同时清空缓存，之后每次调用都重新解析密钥
+     *
+     * @param enabled 是否开启
+     */
+    public static void setKeyCacheEnabled(boolean enabled)
+    {
+        keyCacheEnabled = enabled;
+        if (false == enabled) {
+            KEY_CACHE.clear();
+        }
+    }
+
+    private static SM2 getPrivate(String privateKeyStr)
+    {
+        if (keyCacheEnabled) {
+            return KEY_CACHE.getPrivate(privateKeyStr);
+        }
+        return new SM2(ECKeyUtil.decodePrivateKeyParams(SecureUtil.decode(privateKeyStr)), null);
+    }
+
+    private static SM2 getPublic(String publicKeyStr)
+    {
+        if (keyCacheEnabled) {
+            return KEY_CACHE.getPublic(publicKeyStr);
+        }
+        return new SM2(null, ECKeyUtil.decodePublicKeyParams(SecureUtil.decode(publicKeyStr)));
+    }
+
 
     public static Pair<String, String> getKeys( ) throws Exception {
-        KeyPair keyPair = SecureUtil.generateKeyPair("SM2");
+        return toKeys(SecureUtil.generateKeyPair("SM2"));
+    }
+
+    /**
+     * 从密钥对池中取出密钥对
+     *
+     * @param pool {@link SM2KeyPairPool}
+     * @return Base64编码的私钥和公钥
+     */
+    public static Pair<String, String> getKeys(SM2KeyPairPool pool) {
+        return toKeys(pool.getKeyPair());
+    }
+
+    private static Pair<String, String> toKeys(KeyPair keyPair) {
         // 生成私钥
         PrivateKey privateKey = keyPair.getPrivate();
         // 生成公钥
@@ -0,0 +1,398 @@
+package cn.csfz.crypto;
+
+import cn.csfz.crypto.asymmetric.KeyType;
+import cn.csfz.crypto.asymmetric.SM2;
+import cn.csfz.crypto.digest.Digester;
+import cn.csfz.crypto.symmetric.SymmetricCrypto;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 异步加解密、签名和摘要门面，返回{@link CompletableFuture}，适用于Netty等非阻塞场景，避免在事件循环线程中执行耗时的密码运算<br>
+ * 任务在专用的有界线程池中执行（默认线程数为CPU核数），队列满时按{@link RejectPolicy}处理。
+ * 工作线程每次从队列中取出所有已排队的任务（最多{@link #setMaxBatchSize(int)}个）连续执行，
+ * 相近时间提交的任务共用一次队列加锁和线程唤醒。
+ *
+ * <pre>
+ * AsyncCrypto async = new AsyncCrypto();
+ * async.signAsync(sm2, data).thenAccept(sign -&gt; ...);
+ * </pre>
+ *
+ * <p>
+ * 传入的{@link SM2}、{@link SymmetricCrypto}和{@link Digester}会被多个工作线程同时使用，
+ * SM2和SymmetricCrypto默认使用锁串行执行，建议开启并发模式（如{@link SM2#setConcurrent(boolean)}）；
+ * {@link Digester}非线程安全，每个任务使用时对其加锁。<br>
+ * 此对象线程安全，不再使用时应调用{@link #close()}停止工作线程。
+ *
+ * @since 2.0.0
+ */
+public class AsyncCrypto implements Closeable {
+
+	/**
+	 * 默认队列容量
+	 */
+	public static final int DEFAULT_QUEUE_CAPACITY = 1024;
+	/**
+	 * 默认每批最多执行的任务数
+	 */
+	public static final int DEFAULT_MAX_BATCH_SIZE = 32;
+
+	/**
+	 * 队列满时的拒绝策略
+	 */
+	public enum RejectPolicy {
+		/**
+		 * 返回以{@link RejectedExecutionException}失败的Future
+		 */
+		ABORT,
+		/**
+		 * 在提交任务的线程中直接执行
+		 */
+		CALLER_RUNS,
+		/**
+		 * 阻塞提交线程直到队列有空位
+		 */
+		BLOCK
+	}
+
+	private final BlockingQueue<Task<?>> queue;
+	private final RejectPolicy rejectPolicy;
+	private final Thread[] workers;
+	private volatile int maxBatchSize = DEFAULT_MAX_BATCH_SIZE;
+	private volatile boolean closed;
+
+	private final AtomicLong completedCount = new AtomicLong();
+	private final AtomicLong rejectedCount = new AtomicLong();
+	private final AtomicLong batchCount = new AtomicLong();
+
+	/**
+	 * 构造，线程数为CPU核数，使用默认队列容量，队列满时拒绝
+	 */
+	public AsyncCrypto() {
+		this(Runtime.getRuntime().availableProcessors(), DEFAULT_QUEUE_CAPACITY, RejectPolicy.ABORT);
+	}
+
+	/**
+	 * 构造
+	 *
+	 * @param threadCount   工作线程数
+	 * @param queueCapacity 队列容量
+	 * @param rejectPolicy  队列满时的拒绝策略
+	 */
+	public AsyncCrypto(int threadCount, int queueCapacity, RejectPolicy rejectPolicy) {
+		if (threadCount <= 0) {
+			throw new IllegalArgumentException("Thread count must be greater than 0");
+		}
+		if (queueCapacity <= 0) {
+			throw new IllegalArgumentException("Queue capacity must be greater than 0");
+		}
+		this.queue = new ArrayBlockingQueue<Task<?>>(queueCapacity);
+		this.rejectPolicy = (null == rejectPolicy) ? RejectPolicy.ABORT : rejectPolicy;
+
+		this.workers = new Thread[threadCount];
+		for (int i = 0; i < threadCount; i++) {
+			final Thread worker = new Thread(new Runnable() {
+				@Override
+				public void run() {
+					work();
+				}
+			}, "crypto-async-" + i);
+			worker.setDaemon(true);
+			worker.start();
+			this.workers[i] = worker;
+		}
+	}
+
+	/**
+	 * 设置工作线程每批最多连续执行的任务数
+	 *
+	 * @param maxBatchSize 每批最多执行的任务数，1表示不合并
+	 * @return this
+	 */
+	public AsyncCrypto setMaxBatchSize(int maxBatchSize) {
+		if (maxBatchSize <= 0) {
+			throw new IllegalArgumentException("Max batch size must be greater than 0");
+		}
+		this.maxBatchSize = maxBatchSize;
+		return this;
+	}
+
+	/**
+	 * 异步签名
+	 *
+	 * @param sm2  {@link SM2}，需包含私钥
+	 * @param data 被签名的数据
+	 * @return 签名结果
+	 */
+	public CompletableFuture<byte[]> signAsync(final SM2 sm2, final byte[] data) {
+		return submit(new Callable<byte[]>() {
+			@Override
+			public byte[] call() {
+				return sm2.sign(data);
+			}
+		});
+	}
+
+	/**
+	 * 异步验签
+	 *
+	 * @param sm2  {@link SM2}，需包含公钥
+	 * @param data 被签名的数据
+	 * @param sign 签名
+	 * @return 是否验证通过
+	 */
+	public CompletableFuture<Boolean> verifyAsync(final SM2 sm2, final byte[] data, final byte[] sign) {
+		return submit(new Callable<Boolean>() {
+			@Override
+			public Boolean call() {
+				return sm2.verify(data, sign);
+			}
+		});
+	}
+
+	/**
+	 * 异步公钥加密
+	 *
+	 * @param sm2  {@link SM2}，需包含公钥
+	 * @param data 被加密的数据
+	 * @return 密文
+	 */
+	public CompletableFuture<byte[]> encryptAsync(final SM2 sm2, final byte[] data) {
+		return submit(new Callable<byte[]>() {
+			@Override
+			public byte[] call() {
+				return sm2.encrypt(data, KeyType.PublicKey);
+			}
+		});
+	}
+
+	/**
+	 * 异步私钥解密
+	 *
+	 * @param sm2  {@link SM2}，需包含私钥
+	 * @param data 密文
+	 * @return 明文
+	 */
+	public CompletableFuture<byte[]> decryptAsync(final SM2 sm2, final byte[] data) {
+		return submit(new Callable<byte[]>() {
+			@Override
+			public byte[] call() {
+				return sm2.decrypt(data, KeyType.PrivateKey);
+			}
+		});
+	}
+
+	/**
+	 * 异步对称加密
+	 *
+	 * @param crypto {@link SymmetricCrypto}，如SM4
+	 * @param data   被加密的数据
+	 * @return 密文
+	 */
+	public CompletableFuture<byte[]> encryptAsync(final SymmetricCrypto crypto, final byte[] data) {
+		return submit(new Callable<byte[]>() {
+			@Override
+			public byte[] call() {
+				return crypto.encrypt(data);
+			}
+		});
+	}
+
+	/**
+	 * 异步对称解密
+	 *
+	 * @param crypto {@link SymmetricCrypto}，如SM4
+	 * @param data   密文
+	 * @return 明文
+	 */
+	public CompletableFuture<byte[]> decryptAsync(final SymmetricCrypto crypto, final byte[] data) {
+		return submit(new Callable<byte[]>() {
+			@Override
+			public byte[] call() {
+				return crypto.decrypt(data);
+			}
+		});
+	}
+
+	/**
+	 * 异步计算摘要
+	 *
+	 * @param digester {@link Digester}，如SM3
+	 * @param data     被摘要的数据
+	 * @return 摘要
+	 */
+	public CompletableFuture<byte[]> digestAsync(final Digester digester, final byte[] data) {
+		return submit(new Callable<byte[]>() {
+			@Override
+			public byte[] call() {
+				synchronized (digester) {
+					return digester.digest(data);
+				}
+			}
+		});
+	}
+
+	/**
+	 * 提交任意任务
+	 *
+	 * @param <T>      结果类型
+	 * @param callable 任务
+	 * @return 任务结果
+	 */
+	public <T> CompletableFuture<T> submit(Callable<T> callable) {
+		final Task<T> task = new Task<T>(callable);
+		if (this.closed) {
+			reject(task);
+			return task.future;
+		}
+
+		switch (this.rejectPolicy) {
+			case CALLER_RUNS:
+				if (false == this.queue.offer(task)) {
+					task.run();
+					this.completedCount.incrementAndGet();
+				}
+				break;
+			case BLOCK:
+				try {
+					this.queue.put(task);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					reject(task);
+				}
+				break;
+			default:
+				if (false == this.queue.offer(task)) {
+					reject(task);
+				}
+		}
+
+		if (this.closed && this.queue.remove(task)) {
+			// 提交时恰好关闭，工作线程可能已退出
+			reject(task);
+		}
+		return task.future;
+	}
+
+	/**
+	 * 获取队列中等待执行的任务数
+	 *
+	 * @return 等待执行的任务数
+	 */
+	public int getQueueSize() {
+		return this.queue.size();
+	}
+
+	/**
+	 * 获取已执行完成（包括执行失败）的任务数
+	 *
+	 * @return 已完成任务数
+	 */
+	public long getCompletedCount() {
+		return this.completedCount.get();
+	}
+
+	/**
+	 * 获取被拒绝的任务数
+	 *
+	 * @return 被拒绝任务数
+	 */
+	public long getRejectedCount() {
+		return this.rejectedCount.get();
+	}
+
+	/**
+	 * 获取工作线程执行的批次数，与{@link #getCompletedCount()}对比可知合并程度
+	 *
+	 * @return 批次数
+	 */
+	public long getBatchCount() {
+		return this.batchCount.get();
+	}
+
+	/**
+	 * 停止工作线程，队列中未执行的任务以{@link RejectedExecutionException}失败，之后提交的任务均被拒绝
+	 */
+	@Override
+	public void close() {
+		this.closed = true;
+		for (Thread worker : this.workers) {
+			worker.interrupt();
+		}
+		rejectAll();
+	}
+
+	/**
+	 * 工作线程循环：等待一个任务后取出队列中已有的其它任务，连续执行
+	 */
+	private void work() {
+		final List<Task<?>> batch = new ArrayList<Task<?>>();
+		try {
+			while (false == this.closed) {
+				batch.add(this.queue.take());
+				this.queue.drainTo(batch, this.maxBatchSize - 1);
+				this.batchCount.incrementAndGet();
+				for (Task<?> task : batch) {
+					task.run();
+					this.completedCount.incrementAndGet();
+				}
+				batch.clear();
+			}
+		} catch (InterruptedException e) {
+			// 已关闭
+		}
+		rejectAll();
+	}
+
+	/**
+	 * 拒绝队列中所有未执行的任务
+	 */
+	private void rejectAll() {
+		Task<?> task;
+		while (null != (task = this.queue.poll())) {
+			reject(task);
+		}
+	}
+
+	/**
+	 * 拒绝任务
+	 *
+	 * @param task 任务
+	 */
+	private void reject(Task<?> task) {
+		this.rejectedCount.incrementAndGet();
+		task.future.completeExceptionally(new RejectedExecutionException(
+				this.closed ? "AsyncCrypto has been closed" : "AsyncCrypto queue is full"));
+	}
+
+	/**
+	 * 任务及其结果
+	 *
+	 * @param <T> 结果类型
+	 */
+	private static class Task<T> implements Runnable {
+		private final Callable<T> callable;
+		private final CompletableFuture<T> future = new CompletableFuture<T>();
+
+		Task(Callable<T> callable) {
+			this.callable = callable;
+		}
+
+		@Override
+		public void run() {
+			try {
+				this.future.complete(this.callable.call());
+			} catch (Throwable e) {
+				this.future.completeExceptionally(e);
+			}
+		}
+	}
+}
@@ -0,0 +1,151 @@
+package cn.csfz.crypto;
+
+import java.security.SecureRandom;
+import java.security.spec.AlgorithmParameterSpec;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * {@link CipherWrapper}对象池，用于多个线程同时使用同一算法、密钥和参数加解密<br>
+ * {@link javax.crypto.Cipher}有状态且非线程安全，池中每个对象同一时间只被一个线程借出。
+ * 池使用无锁队列，借出和归还不加锁也不使用{@code synchronized}，在虚拟线程中使用不会钉住载体线程；
+ * 池中没有空闲对象时直接创建新对象，不会等待。
+ *
+ * <p>
+ * 池创建时复制算法参数和随机数生成器，之后不再改变，参数变化时应创建新的池。<br>
+ * 此对象线程安全。
+ *
+ * @since 2.0.0
+ */
+public class CipherPool {
+
+	/**
+	 * 默认最多保留的空闲对象数
+	 */
+	public static final int DEFAULT_MAX_IDLE = Math.max(4, Runtime.getRuntime().availableProcessors() * 2);
+
+	private final String algorithm;
+	private final AlgorithmParameterSpec params;
+	private final SecureRandom random;
+	private final int maxIdle;
+	private volatile boolean reuseFixedParams;
+
+	private final Queue<CipherWrapper> idle = new ConcurrentLinkedQueue<CipherWrapper>();
+	private final AtomicInteger idleCount = new AtomicInteger();
+
+	private final AtomicLong borrowCount = new AtomicLong();
+	private final AtomicLong createdCount = new AtomicLong();
+	private final AtomicLong discardedCount = new AtomicLong();
+
+	/**
+	 * 构造
+	 *
+	 * @param algorithm 算法，可以是"algorithm/mode/padding"
+	 * @param params    算法参数，可以为{@code null}
+	 * @param random    随机数生成器，可以为{@code null}
+	 * @param maxIdle   最多保留的空闲对象数，超出的对象归还时丢弃
+	 */
+	public CipherPool(String algorithm, AlgorithmParameterSpec params, SecureRandom random, int maxIdle) {
+		if (maxIdle <= 0) {
+			throw new IllegalArgumentException("maxIdle must be greater than 0 !");
+		}
+		this.algorithm = algorithm;
+		this.params = params;
+		this.random = random;
+		this.maxIdle = maxIdle;
+	}
+
+	/**
+	 * 设置新创建的{@link CipherWrapper}是否复用固定参数的初始化状态，应在使用前设置
+	 *
+	 * @param reuseFixedParams 是否复用
+	 * @return this
+	 * @see CipherWrapper#setReuseFixedParams(boolean)
+	 */
+	public CipherPool setReuseFixedParams(boolean reuseFixedParams) {
+		this.reuseFixedParams = reuseFixedParams;
+		return this;
+	}
+
+	/**
+	 * 借出一个{@link CipherWrapper}，使用完毕后必须调用{@link #release(CipherWrapper)}归还
+	 *
+	 * @return {@link CipherWrapper}
+	 */
+	public CipherWrapper borrow() {
+		this.borrowCount.incrementAndGet();
+		final CipherWrapper wrapper = this.idle.poll();
+		if (null != wrapper) {
+			this.idleCount.decrementAndGet();
+			return wrapper;
+		}
+		// 空闲对象已被其它线程借走，即发生争用
+		this.createdCount.incrementAndGet();
+		return new CipherWrapper(this.algorithm).setParams(this.params).setRandom(this.random)
+				.setReuseFixedParams(this.reuseFixedParams);
+	}
+
+	/**
+	 * 归还{@link CipherWrapper}，空闲对象已满时丢弃
+	 *
+	 * @param wrapper {@link CipherWrapper}
+	 */
+	public void release(CipherWrapper wrapper) {
+		if (null == wrapper) {
+			return;
+		}
+		if (this.idleCount.incrementAndGet() > this.maxIdle) {
+			this.idleCount.decrementAndGet();
+			this.discardedCount.incrementAndGet();
+			return;
+		}
+		this.idle.offer(wrapper);
+	}
+
+	/**
+	 * 获取当前空闲对象数
+	 *
+	 * @return 空闲对象数
+	 */
+	public int getIdleCount() {
+		return this.idleCount.get();
+	}
+
+	/**
+	 * 获取最多保留的空闲对象数
+	 *
+	 * @return 最多保留的空闲对象数
+	 */
+	public int getMaxIdle() {
+		return this.maxIdle;
+	}
+
+	/**
+	 * 获取借出总次数
+	 *
+	 * @return 借出次数
+	 */
+	public long getBorrowCount() {
+		return this.borrowCount.get();
+	}
+
+	/**
+	 * 获取创建的对象总数，超出并发线程数的部分即为争用次数
+	 *
+	 * @return 创建的对象数
+	 */
+	public long getCreatedCount() {
+		return this.createdCount.get();
+	}
+
+	/**
+	 * 获取因空闲对象已满而丢弃的对象数，持续增长说明maxIdle小于实际并发数
+	 *
+	 * @return 丢弃的对象数
+	 */
+	public long getDiscardedCount() {
+		return this.discardedCount.get();
+	}
+}
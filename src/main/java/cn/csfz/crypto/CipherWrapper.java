@@ -1,6 +1,7 @@
 package cn.csfz.crypto;
 
 import javax.crypto.Cipher;
+import javax.crypto.spec.GCMParameterSpec;
 import java.security.InvalidAlgorithmParameterException;
 import java.security.InvalidKeyException;
 import java.security.Key;
@@ -15,6 +16,15 @@ import java.security.spec.AlgorithmParameterSpec;
  *     <li>{@link SecureRandom}</li>
  * </ul>
  *
+ * <p>
+ * {@link Cipher#doFinal()}完成后会恢复到上次初始化后的状态，因此模式和密钥与上次初始化相同、且初始化结果确定时，
+ * {@link #initMode(int, Key)}跳过{@link Cipher#init(int, Key)}，复用已展开的轮密钥：
+ * <ul>
+ *     <li>无参数且不使用IV（如ECB）时自动跳过</li>
+ *     <li>固定IV的CBC需通过{@link #setReuseFixedParams(boolean)}开启</li>
+ *     <li>随机IV和AEAD模式（GCM、CCM等）始终重新初始化</li>
+ * </ul>
+ *
  * @author looly
  * @since 5.7.17
  */
@@ -29,6 +39,18 @@ public class CipherWrapper {
 	 * 随机数生成器，可自定义随机数种子
 	 */
 	private SecureRandom random;
+	/**
+	 * 是否复用固定参数（如固定IV的CBC）的初始化状态
+	 */
+	private boolean reuseFixedParams;
+	/**
+	 * 上次初始化的模式，0表示未初始化或状态不可复用
+	 */
+	private int initializedMode;
+	/**
+	 * 上次初始化使用的密钥
+	 */
+	private Key initializedKey;
 
 	/**
 	 * 构造
@@ -66,6 +88,7 @@ public class CipherWrapper {
 	 */
 	public CipherWrapper setParams(AlgorithmParameterSpec params) {
 		this.params = params;
+		invalidate();
 		return this;
 	}
 
@@ -77,9 +100,46 @@ public class CipherWrapper {
 	 */
 	public CipherWrapper setRandom(SecureRandom random) {
 		this.random = random;
+		invalidate();
+		return this;
+	}
+
+	/**
+	 * 设置是否复用固定参数（如固定IV的CBC）的初始化状态，相同模式和密钥再次初始化时跳过{@link Cipher#init(int, Key)}<br>
+	 * 只对CBC模式有效，AEAD模式（GCM、CCM等）不受此设置影响，始终重新初始化。
+	 *
+	 * @param reuseFixedParams 是否复用
+	 * @return this
+	 * @since 2.0.0
+	 */
+	public CipherWrapper setReuseFixedParams(boolean reuseFixedParams) {
+		this.reuseFixedParams = reuseFixedParams;
+		return this;
+	}
+
+	/**
+	 * 标记当前初始化状态不可复用，下次{@link #initMode(int, Key)}时重新初始化<br>
+	 * 在分段{@link Cipher#update(byte[])}之后、或加解密失败后调用，此时{@link Cipher}可能未恢复到初始化后的状态。
+	 *
+	 * @return this
+	 * @since 2.0.0
+	 */
+	public CipherWrapper invalidate() {
+		this.initializedMode = 0;
+		this.initializedKey = null;
 		return this;
 	}
 
+	/**
+	 * 获取随机数生成器
+	 *
+	 * @return 随机数生成器，{@code null}表示使用默认
+	 * @since 2.0.0
+	 */
+	public SecureRandom getRandom() {
+		return this.random;
+	}
+
 	/**
 	 * 获取被包装的{@link Cipher}
 	 *
@@ -102,6 +162,11 @@ public class CipherWrapper {
 			throws InvalidKeyException, InvalidAlgorithmParameterException {
 		final Cipher cipher = this.cipher;
 		final AlgorithmParameterSpec params = this.params;
+		if (canReuse(mode, key, params)) {
+			return this;
+		}
+
+		invalidate();
 		final SecureRandom random = this.random;
 		if (null != params) {
 			if (null != random) {
@@ -116,6 +181,30 @@ public class CipherWrapper {
 				cipher.init(mode, key);
 			}
 		}
+		this.initializedMode = mode;
+		this.initializedKey = key;
 		return this;
 	}
+
+	/**
+	 * 是否可以复用上次的初始化状态
+	 *
+	 * @param mode   模式
+	 * @param key    密钥
+	 * @param params 算法参数
+	 * @return 是否可以复用
+	 */
+	private boolean canReuse(int mode, Key key, AlgorithmParameterSpec params) {
+		if (mode != this.initializedMode || key != this.initializedKey) {
+			return false;
+		}
+		if (null == params) {
+			// 初始化时生成了随机IV的，每次需重新生成
+			return null == this.cipher.getIV();
+		}
+		if (false == this.reuseFixedParams || params instanceof GCMParameterSpec) {
+			return false;
+		}
+		return this.cipher.getAlgorithm().toUpperCase().contains("/CBC/");
+	}
 }
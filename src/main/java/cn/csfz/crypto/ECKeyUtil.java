@@ -1,6 +1,7 @@
 package cn.csfz.crypto;
 
 import cn.csfz.core.io.IORuntimeException;
+import cn.csfz.crypto.asymmetric.sm2.SM2PublicKeyRegistry;
 import org.bouncycastle.asn1.pkcs.PrivateKeyInfo;
 import org.bouncycastle.asn1.sec.ECPrivateKey;
 import org.bouncycastle.asn1.x509.AlgorithmIdentifier;
@@ -33,6 +34,31 @@ import java.security.spec.KeySpec;
  */
 public class ECKeyUtil {
 
+	/**
+	 * 公钥解码注册表，{@code null}表示每次重新解码
+	 */
+	private static volatile SM2PublicKeyRegistry publicKeyRegistry = new SM2PublicKeyRegistry();
+
+	/**
+	 * 设置公钥解码注册表，{@link #toSm2PublicParams(byte[])}和{@link #decodePublicKeyParams(byte[])}对相同的公钥编码只解码和校验一次
+	 *
+	 * @param publicKeyRegistry {@link SM2PublicKeyRegistry}，{@code null}表示不缓存，每次重新解码
+	 * @since 2.0.0
+	 */
+	public static void setPublicKeyRegistry(SM2PublicKeyRegistry publicKeyRegistry) {
+		ECKeyUtil.publicKeyRegistry = publicKeyRegistry;
+	}
+
+	/**
+	 * 获取公钥解码注册表，默认缓存{@link SM2PublicKeyRegistry#DEFAULT_MAX_SIZE}个公钥
+	 *
+	 * @return {@link SM2PublicKeyRegistry}，未使用时为{@code null}
+	 * @since 2.0.0
+	 */
+	public static SM2PublicKeyRegistry getPublicKeyRegistry() {
+		return publicKeyRegistry;
+	}
+
 	/**
 	 * 密钥转换为AsymmetricKeyParameter
 	 *
@@ -62,16 +88,67 @@ public class ECKeyUtil {
 		return new ECPublicKeyParameters(q, domainParameters);
 	}
 
+	/**
+	 * 将sm2p256v1曲线上的私钥参数转换为使用{@link SmUtil#SM2_DOMAIN_PARAMS}（专用曲线实现）的参数<br>
+	 * 其它曲线或已使用专用实现的参数原样返回。
+	 *
+	 * @param privateKeyParameters 私钥参数，传入null返回null
+	 * @return 私钥参数
+	 * @since 2.0.0
+	 */
+	public static ECPrivateKeyParameters toSm2Params(ECPrivateKeyParameters privateKeyParameters) {
+		if (null == privateKeyParameters || false == isSm2Convertible(privateKeyParameters.getParameters())) {
+			return privateKeyParameters;
+		}
+		return new ECPrivateKeyParameters(privateKeyParameters.getD(), SmUtil.SM2_DOMAIN_PARAMS);
+	}
+
+	/**
+	 * 将sm2p256v1曲线上的公钥参数转换为使用{@link SmUtil#SM2_DOMAIN_PARAMS}（专用曲线实现）的参数<br>
+	 * 其它曲线或已使用专用实现的参数原样返回。
+	 *
+	 * @param publicKeyParameters 公钥参数，传入null返回null
+	 * @return 公钥参数
+	 * @since 2.0.0
+	 */
+	public static ECPublicKeyParameters toSm2Params(ECPublicKeyParameters publicKeyParameters) {
+		if (null == publicKeyParameters || false == isSm2Convertible(publicKeyParameters.getParameters())) {
+			return publicKeyParameters;
+		}
+		final ECPoint q = SmUtil.SM2_DOMAIN_PARAMS.getCurve().importPoint(publicKeyParameters.getQ());
+		return new ECPublicKeyParameters(q, SmUtil.SM2_DOMAIN_PARAMS);
+	}
+
+	/**
+	 * 是否为sm2p256v1曲线参数，但未使用{@link SmUtil#SM2_DOMAIN_PARAMS}中的专用曲线实现
+	 *
+	 * @param domainParameters 曲线参数
+	 * @return 是否需要转换
+	 */
+	private static boolean isSm2Convertible(ECDomainParameters domainParameters) {
+		return domainParameters.getCurve() != SmUtil.SM2_DOMAIN_PARAMS.getCurve()
+				&& SmUtil.SM2_DOMAIN_PARAMS.equals(domainParameters);
+	}
+
 	//--------------------------------------------------------------------------- Public Key
 
 	/**
-	 * 转换为 ECPublicKeyParameters
+	 * 转换为 ECPublicKeyParameters<br>
+	 * 设置了{@link SM2PublicKeyRegistry}时，相同的Q值只解码和校验一次。
 	 *
 	 * @param q 公钥Q值
 	 * @return ECPublicKeyParameters
 	 */
 	public static ECPublicKeyParameters toSm2PublicParams(byte[] q) {
-		return toPublicParams(q, SmUtil.SM2_DOMAIN_PARAMS);
+		final SM2PublicKeyRegistry registry = publicKeyRegistry;
+		if (null == registry) {
+			return toPublicParams(q, SmUtil.SM2_DOMAIN_PARAMS);
+		}
+		final ECPublicKeyParameters params = registry.get(q, true);
+		if (null != params) {
+			return params;
+		}
+		return registry.put(q, true, toPublicParams(q, SmUtil.SM2_DOMAIN_PARAMS));
 	}
 
 	/**
@@ -81,7 +158,7 @@ public class ECKeyUtil {
 	 * @return ECPublicKeyParameters
 	 */
 	public static ECPublicKeyParameters toSm2PublicParams(String q) {
-		return toPublicParams(q, SmUtil.SM2_DOMAIN_PARAMS);
+		return toSm2PublicParams(SecureUtil.decode(q));
 	}
 
 	/**
@@ -371,15 +448,34 @@ public class ECKeyUtil {
 	 *     <li>X.509</li>
 	 *     <li>PKCS#1</li>
 	 * </ul>
+	 * 设置了{@link SM2PublicKeyRegistry}时，相同的公钥只解码和校验一次。
 	 *
 	 * @param publicKeyBytes 公钥
 	 * @return {@link ECPublicKeyParameters}
 	 * @since 5.5.9
 	 */
 	public static ECPublicKeyParameters decodePublicKeyParams(byte[] publicKeyBytes) {
+		final SM2PublicKeyRegistry registry = publicKeyRegistry;
+		if (null == registry || null == publicKeyBytes) {
+			return doDecodePublicKeyParams(publicKeyBytes);
+		}
+		final ECPublicKeyParameters params = registry.get(publicKeyBytes, false);
+		if (null != params) {
+			return params;
+		}
+		return registry.put(publicKeyBytes, false, doDecodePublicKeyParams(publicKeyBytes));
+	}
+
+	/**
+	 * 解析转换各种类型公钥为{@link ECPublicKeyParameters}，不使用注册表
+	 *
+	 * @param publicKeyBytes 公钥
+	 * @return {@link ECPublicKeyParameters}
+	 */
+	private static ECPublicKeyParameters doDecodePublicKeyParams(byte[] publicKeyBytes) {
 		try {
 			// 尝试Q值
-			return toSm2PublicParams(publicKeyBytes);
+			return toPublicParams(publicKeyBytes, SmUtil.SM2_DOMAIN_PARAMS);
 		} catch (Exception ignore) {
 			// ignore
 		}
@@ -7,6 +7,7 @@ import cn.csfz.core.util.CharUtil;
 import cn.csfz.core.util.RandomUtil;
 import cn.csfz.core.util.StrUtil;
 import cn.csfz.crypto.asymmetric.AsymmetricAlgorithm;
+import cn.csfz.crypto.asymmetric.sm2.SM2KeyPairGenerator;
 import cn.csfz.crypto.symmetric.SymmetricAlgorithm;
 import org.bouncycastle.util.encoders.Base64;
 
@@ -377,6 +378,10 @@ public class KeyUtil {
 	public static KeyPair generateKeyPair(String algorithm, int keySize, byte[] seed) {
 		// SM2算法需要单独定义其曲线生成
 		if ("SM2".equalsIgnoreCase(algorithm)) {
+			if (null != GlobalBouncyCastleProvider.INSTANCE.getProvider()) {
+				// 使用基点预计算表快速生成
+				return new SM2KeyPairGenerator(RandomUtil.createSecureRandom(seed)).generateKeyPair();
+			}
 			final ECGenParameterSpec sm2p256v1 = new ECGenParameterSpec(SM2_DEFAULT_CURVE);
 			return generateKeyPair(algorithm, keySize, seed, sm2p256v1);
 		}
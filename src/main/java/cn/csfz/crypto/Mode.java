@@ -42,5 +42,17 @@ public enum Mode {
 	/**
 	 * Propagating Cipher Block
 	 */
-	PCBC
+	PCBC,
+	/**
+	 * 伽罗瓦/计数器模式（Galois/Counter Mode），认证加密
+	 *
+	 * @since 2.0.0
+	 */
+	GCM,
+	/**
+	 * 计数器与CBC-MAC模式（Counter with CBC-MAC），认证加密
+	 *
+	 * @since 2.0.0
+	 */
+	CCM
 }
@@ -9,14 +9,21 @@ import cn.csfz.crypto.digest.SM3;
 import cn.csfz.crypto.digest.mac.MacEngine;
 import cn.csfz.crypto.symmetric.SM4;
 import cn.csfz.crypto.symmetric.SymmetricCrypto;
+import org.bouncycastle.asn1.ASN1Integer;
 import org.bouncycastle.asn1.ASN1ObjectIdentifier;
-import org.bouncycastle.asn1.gm.GMNamedCurves;
+import org.bouncycastle.asn1.ASN1OctetString;
+import org.bouncycastle.asn1.ASN1Sequence;
+import org.bouncycastle.asn1.DEROctetString;
 import org.bouncycastle.crypto.digests.SM3Digest;
+import org.bouncycastle.crypto.ec.CustomNamedCurves;
+import org.bouncycastle.crypto.engines.SM2Engine;
 import org.bouncycastle.crypto.params.ECDomainParameters;
 import org.bouncycastle.crypto.params.ECPrivateKeyParameters;
 import org.bouncycastle.crypto.params.ECPublicKeyParameters;
 import org.bouncycastle.crypto.signers.StandardDSAEncoding;
+import org.bouncycastle.math.ec.ECPoint;
 import org.bouncycastle.util.Arrays;
+import org.bouncycastle.util.BigIntegers;
 import org.bouncycastle.util.encoders.Hex;
 
 import java.io.File;
@@ -43,14 +50,20 @@ import java.security.PublicKey;
 public class SmUtil {
 
 	private final static int RS_LEN = 32;
+	/**
+	 * SM3摘要长度，即SM2密文中C3的长度
+	 */
+	private final static int SM3_LEN = 32;
 	/**
 	 * SM2默认曲线
 	 */
 	public static final String SM2_CURVE_NAME = "sm2p256v1";
 	/**
-	 * SM2推荐曲线参数（来自https://github.com/ZZMarquis/gmhelper）
+	 * SM2推荐曲线参数（来自https://github.com/ZZMarquis/gmhelper）<br>
+	 * 使用BC中sm2p256v1的专用实现（32位定长limb、针对SM2素数的快速约减、Jacobian坐标），
+	 * 比通用的{@link org.bouncycastle.math.ec.ECCurve.Fp}快得多，曲线参数与GMNamedCurves中的一致。
 	 */
-	public static final ECDomainParameters SM2_DOMAIN_PARAMS = BCUtil.toDomainParams(GMNamedCurves.getByName(SM2_CURVE_NAME));
+	public static final ECDomainParameters SM2_DOMAIN_PARAMS = BCUtil.toDomainParams(CustomNamedCurves.getByName(SM2_CURVE_NAME));
 	/**
 	 * SM2国密算法公钥参数的Oid标识
 	 */
@@ -212,16 +225,36 @@ public class SmUtil {
 	 * @return 加密后的bytes，顺序为C1C3C2
 	 */
 	public static byte[] changeC1C2C3ToC1C3C2(byte[] c1c2c3, ECDomainParameters ecDomainParameters) {
-		// sm2p256v1的这个固定65。可看GMNamedCurves、ECCurve代码。
-		final int c1Len = (ecDomainParameters.getCurve().getFieldSize() + 7) / 8 * 2 + 1;
-		final int c3Len = 32; // new SM3Digest().getDigestSize();
 		byte[] result = new byte[c1c2c3.length];
-		System.arraycopy(c1c2c3, 0, result, 0, c1Len); // c1
-		System.arraycopy(c1c2c3, c1c2c3.length - c3Len, result, c1Len, c3Len); // c3
-		System.arraycopy(c1c2c3, c1Len, result, c1Len + c3Len, c1c2c3.length - c1Len - c3Len); // c2
+		changeC1C2C3ToC1C3C2(c1c2c3, 0, c1c2c3.length, result, 0, ecDomainParameters);
 		return result;
 	}
 
+	/**
+	 * 将c1||c2||c3转化为c1||c3||c2，结果写入调用方提供的数组，不额外分配密文大小的内存<br>
+	 * out与in相同且outOff与inOff相同时为原地转换，其它情况下两个区域不能重叠。C1支持压缩和非压缩格式。
+	 *
+	 * @param in                 密文，顺序为C1C2C3
+	 * @param inOff              密文开始位置
+	 * @param len                密文长度
+	 * @param out                结果数组
+	 * @param outOff             结果开始位置
+	 * @param ecDomainParameters {@link ECDomainParameters}
+	 * @return 结果长度，与密文长度相同
+	 * @since 2.0.0
+	 */
+	public static int changeC1C2C3ToC1C3C2(byte[] in, int inOff, int len, byte[] out, int outOff, ECDomainParameters ecDomainParameters) {
+		final int c1Len = getC1Length(in, inOff, ecDomainParameters);
+		final int c3Len = SM3_LEN;
+		final int c2Len = len - c1Len - c3Len;
+		checkCipherLength(c2Len);
+		final byte[] c3 = Arrays.copyOfRange(in, inOff + c1Len + c2Len, inOff + len);
+		System.arraycopy(in, inOff, out, outOff, c1Len); // c1
+		System.arraycopy(in, inOff + c1Len, out, outOff + c1Len + c3Len, c2Len); // c2，arraycopy支持重叠区域
+		System.arraycopy(c3, 0, out, outOff + c1Len, c3Len); // c3
+		return len;
+	}
+
 	/**
 	 * bc加解密使用旧标c1||c3||c2，此方法在解密前调用，将密文转化为c1||c2||c3再去解密
 	 *
@@ -230,16 +263,132 @@ public class SmUtil {
 	 * @return c1c2c3 加密后的bytes，顺序为C1C2C3
 	 */
 	public static byte[] changeC1C3C2ToC1C2C3(byte[] c1c3c2, ECDomainParameters ecDomainParameters) {
-		// sm2p256v1的这个固定65。可看GMNamedCurves、ECCurve代码。
-		final int c1Len = (ecDomainParameters.getCurve().getFieldSize() + 7) / 8 * 2 + 1;
-		final int c3Len = 32; // new SM3Digest().getDigestSize();
 		byte[] result = new byte[c1c3c2.length];
-		System.arraycopy(c1c3c2, 0, result, 0, c1Len); // c1: 0->65
-		System.arraycopy(c1c3c2, c1Len + c3Len, result, c1Len, c1c3c2.length - c1Len - c3Len); // c2
-		System.arraycopy(c1c3c2, c1Len, result, c1c3c2.length - c3Len, c3Len); // c3
+		changeC1C3C2ToC1C2C3(c1c3c2, 0, c1c3c2.length, result, 0, ecDomainParameters);
 		return result;
 	}
 
+	/**
+	 * 将c1||c3||c2转化为c1||c2||c3，结果写入调用方提供的数组，不额外分配密文大小的内存<br>
+	 * out与in相同且outOff与inOff相同时为原地转换，其它情况下两个区域不能重叠。C1支持压缩和非压缩格式。
+	 *
+	 * @param in                 密文，顺序为C1C3C2
+	 * @param inOff              密文开始位置
+	 * @param len                密文长度
+	 * @param out                结果数组
+	 * @param outOff             结果开始位置
+	 * @param ecDomainParameters {@link ECDomainParameters}
+	 * @return 结果长度，与密文长度相同
+	 * @since 2.0.0
+	 */
+	public static int changeC1C3C2ToC1C2C3(byte[] in, int inOff, int len, byte[] out, int outOff, ECDomainParameters ecDomainParameters) {
+		final int c1Len = getC1Length(in, inOff, ecDomainParameters);
+		final int c3Len = SM3_LEN;
+		final int c2Len = len - c1Len - c3Len;
+		checkCipherLength(c2Len);
+		final byte[] c3 = Arrays.copyOfRange(in, inOff + c1Len, inOff + c1Len + c3Len);
+		System.arraycopy(in, inOff, out, outOff, c1Len); // c1
+		System.arraycopy(in, inOff + c1Len + c3Len, out, outOff + c1Len, c2Len); // c2，arraycopy支持重叠区域
+		System.arraycopy(c3, 0, out, outOff + c1Len + c2Len, c3Len); // c3
+		return len;
+	}
+
+	/**
+	 * 将SM2密文中的C1转换为压缩格式，C2和C3顺序不变
+	 *
+	 * @param cipher             密文，C1为压缩或非压缩格式
+	 * @param ecDomainParameters {@link ECDomainParameters}
+	 * @return C1为压缩格式的密文
+	 * @since 2.0.0
+	 */
+	public static byte[] compressC1(byte[] cipher, ECDomainParameters ecDomainParameters) {
+		return encodeC1(cipher, ecDomainParameters, true);
+	}
+
+	/**
+	 * 将SM2密文中的C1转换为非压缩格式，C2和C3顺序不变
+	 *
+	 * @param cipher             密文，C1为压缩或非压缩格式
+	 * @param ecDomainParameters {@link ECDomainParameters}
+	 * @return C1为非压缩格式的密文
+	 * @since 2.0.0
+	 */
+	public static byte[] decompressC1(byte[] cipher, ECDomainParameters ecDomainParameters) {
+		return encodeC1(cipher, ecDomainParameters, false);
+	}
+
+	/**
+	 * 将C1C3C2或C1C2C3格式的SM2密文转换为GM/T 0009定义的ASN.1格式：
+	 * <pre>
+	 * SM2Cipher ::= SEQUENCE {
+	 *     XCoordinate INTEGER,
+	 *     YCoordinate INTEGER,
+	 *     HASH        OCTET STRING SIZE(32),
+	 *     CipherText  OCTET STRING
+	 * }
+	 * </pre>
+	 *
+	 * @param cipher             密文，C1为压缩或非压缩格式
+	 * @param mode               密文排列模式
+	 * @param ecDomainParameters {@link ECDomainParameters}
+	 * @return ASN.1 DER编码的密文
+	 * @since 2.0.0
+	 */
+	public static byte[] cipherToAsn1(byte[] cipher, SM2Engine.Mode mode, ECDomainParameters ecDomainParameters) {
+		final int c1Len = getC1Length(cipher, 0, ecDomainParameters);
+		final int c2Len = cipher.length - c1Len - SM3_LEN;
+		checkCipherLength(c2Len);
+		final int c2Off = (SM2Engine.Mode.C1C3C2 == mode) ? c1Len + SM3_LEN : c1Len;
+		final int c3Off = (SM2Engine.Mode.C1C3C2 == mode) ? c1Len : c1Len + c2Len;
+
+		final ECPoint c1 = ecDomainParameters.getCurve().decodePoint(Arrays.copyOfRange(cipher, 0, c1Len)).normalize();
+		return ASN1Util.encodeDer(
+				new ASN1Integer(c1.getAffineXCoord().toBigInteger()),
+				new ASN1Integer(c1.getAffineYCoord().toBigInteger()),
+				new DEROctetString(Arrays.copyOfRange(cipher, c3Off, c3Off + SM3_LEN)),
+				new DEROctetString(Arrays.copyOfRange(cipher, c2Off, c2Off + c2Len)));
+	}
+
+	/**
+	 * 将GM/T 0009定义的ASN.1格式密文转换为C1C3C2或C1C2C3格式，C1为非压缩格式
+	 *
+	 * @param asn1               ASN.1 DER编码的密文
+	 * @param mode               密文排列模式
+	 * @param ecDomainParameters {@link ECDomainParameters}
+	 * @return 密文
+	 * @throws CryptoException ASN.1格式错误、坐标超出曲线长度或HASH不是32字节
+	 * @since 2.0.0
+	 */
+	public static byte[] asn1ToCipher(byte[] asn1, SM2Engine.Mode mode, ECDomainParameters ecDomainParameters) {
+		final int curveLength = (ecDomainParameters.getCurve().getFieldSize() + 7) / 8;
+		final byte[] x;
+		final byte[] y;
+		final byte[] c3;
+		final byte[] c2;
+		try {
+			final ASN1Sequence sequence = ASN1Sequence.getInstance(asn1);
+			if (4 != sequence.size()) {
+				throw new CryptoException("Invalid SM2 ASN.1 cipher, sequence size: {}", sequence.size());
+			}
+			// 坐标超出曲线长度时asUnsignedByteArray抛出IllegalArgumentException
+			x = BigIntegers.asUnsignedByteArray(curveLength, ASN1Integer.getInstance(sequence.getObjectAt(0)).getPositiveValue());
+			y = BigIntegers.asUnsignedByteArray(curveLength, ASN1Integer.getInstance(sequence.getObjectAt(1)).getPositiveValue());
+			c3 = ASN1OctetString.getInstance(sequence.getObjectAt(2)).getOctets();
+			c2 = ASN1OctetString.getInstance(sequence.getObjectAt(3)).getOctets();
+		} catch (IllegalArgumentException e) {
+			throw new CryptoException(e);
+		}
+		if (SM3_LEN != c3.length) {
+			throw new CryptoException("Invalid SM2 ASN.1 cipher, HASH length: {}", c3.length);
+		}
+
+		final byte[] c1 = new byte[1 + 2 * curveLength];
+		c1[0] = 0x04;
+		System.arraycopy(x, 0, c1, 1, curveLength);
+		System.arraycopy(y, 0, c1, 1 + curveLength, curveLength);
+		return (SM2Engine.Mode.C1C3C2 == mode) ? Arrays.concatenate(c1, c3, c2) : Arrays.concatenate(c1, c2, c3);
+	}
+
 	/**
 	 * BC的SM3withSM2签名得到的结果的rs是asn1格式的，这个方法转化成直接拼接r||s
 	 *
@@ -295,6 +444,54 @@ public class SmUtil {
 
 	// -------------------------------------------------------------------------------------------------------- Private method start
 
+	/**
+	 * 根据C1首字节获取C1长度，0x02和0x03开头为压缩格式
+	 *
+	 * @param cipher             密文
+	 * @param off                密文开始位置
+	 * @param ecDomainParameters {@link ECDomainParameters}
+	 * @return C1长度，sm2p256v1为33或65
+	 */
+	private static int getC1Length(byte[] cipher, int off, ECDomainParameters ecDomainParameters) {
+		final int curveLength = (ecDomainParameters.getCurve().getFieldSize() + 7) / 8;
+		if (cipher.length <= off) {
+			throw new CryptoException("Invalid SM2 cipher, empty data !");
+		}
+		return (0x02 == cipher[off] || 0x03 == cipher[off]) ? 1 + curveLength : 1 + 2 * curveLength;
+	}
+
+	/**
+	 * 检查C2长度
+	 *
+	 * @param c2Len C2长度
+	 */
+	private static void checkCipherLength(int c2Len) {
+		if (c2Len < 0) {
+			throw new CryptoException("Invalid SM2 cipher, data is too short !");
+		}
+	}
+
+	/**
+	 * 重新编码密文中的C1
+	 *
+	 * @param cipher             密文
+	 * @param ecDomainParameters {@link ECDomainParameters}
+	 * @param compressed         是否压缩
+	 * @return 新密文
+	 */
+	private static byte[] encodeC1(byte[] cipher, ECDomainParameters ecDomainParameters, boolean compressed) {
+		final int c1Len = getC1Length(cipher, 0, ecDomainParameters);
+		checkCipherLength(cipher.length - c1Len - SM3_LEN);
+		final byte[] c1 = ecDomainParameters.getCurve().decodePoint(Arrays.copyOfRange(cipher, 0, c1Len)).getEncoded(compressed);
+		if (c1.length == c1Len) {
+			return cipher;
+		}
+		final byte[] result = new byte[cipher.length - c1Len + c1.length];
+		System.arraycopy(c1, 0, result, 0, c1.length);
+		System.arraycopy(cipher, c1Len, result, c1.length, cipher.length - c1Len);
+		return result;
+	}
+
 	/**
 	 * BigInteger转固定长度bytes
 	 *
@@ -1,27 +1,47 @@
 package cn.csfz.crypto.asymmetric;
 
+import cn.csfz.core.io.IORuntimeException;
+import cn.csfz.core.io.IoUtil;
 import cn.csfz.core.util.HexUtil;
 import cn.csfz.crypto.BCUtil;
 import cn.csfz.crypto.CryptoException;
 import cn.csfz.crypto.ECKeyUtil;
 import cn.csfz.crypto.SecureUtil;
+import cn.csfz.crypto.SmUtil;
+import cn.csfz.crypto.asymmetric.sm2.SM2CipherEngine;
+import cn.csfz.crypto.asymmetric.sm2.SM2CipherFormat;
+import cn.csfz.crypto.asymmetric.sm2.SM2EphemeralKeyGenerator;
+import cn.csfz.crypto.asymmetric.sm2.SM2FixedPointMultiplier;
+import cn.csfz.crypto.asymmetric.sm2.SM2KeyAgreement;
+import cn.csfz.crypto.asymmetric.sm2.SM2MultiScalarMultiplier;
+import cn.csfz.crypto.asymmetric.sm2.SM2NonceGenerator;
+import cn.csfz.crypto.asymmetric.sm2.SM2PublicKeyCache;
+import cn.csfz.crypto.asymmetric.sm2.SM2SignEngine;
+import cn.csfz.crypto.asymmetric.sm2.SM2ZCache;
 import org.bouncycastle.crypto.CipherParameters;
 import org.bouncycastle.crypto.Digest;
 import org.bouncycastle.crypto.InvalidCipherTextException;
 import org.bouncycastle.crypto.digests.SM3Digest;
 import org.bouncycastle.crypto.engines.SM2Engine;
+import org.bouncycastle.crypto.params.ECDomainParameters;
+import org.bouncycastle.crypto.params.ECKeyParameters;
 import org.bouncycastle.crypto.params.ECPrivateKeyParameters;
 import org.bouncycastle.crypto.params.ECPublicKeyParameters;
 import org.bouncycastle.crypto.params.ParametersWithID;
 import org.bouncycastle.crypto.params.ParametersWithRandom;
 import org.bouncycastle.crypto.signers.DSAEncoding;
 import org.bouncycastle.crypto.signers.PlainDSAEncoding;
-import org.bouncycastle.crypto.signers.SM2Signer;
 import org.bouncycastle.crypto.signers.StandardDSAEncoding;
 import org.bouncycastle.util.BigIntegers;
+import org.bouncycastle.util.Memoable;
 import org.bouncycastle.util.encoders.Hex;
 
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
 import java.math.BigInteger;
+import java.nio.ByteBuffer;
 import java.security.PrivateKey;
 import java.security.PublicKey;
 
@@ -48,9 +68,14 @@ public class SM2 extends AbstractAsymmetricCrypto<SM2> {
      * 算法EC
      */
     private static final String ALGORITHM_SM2 = "SM2";
+    private static final byte ASN1_SEQUENCE_TAG = 0x30;
+    /**
+     * 对摘要签名时无需Z值
+     */
+    private static final byte[] EMPTY_Z = new byte[0];
 
-    protected SM2Engine engine;
-    protected SM2Signer signer;
+    private SM2CipherEngine engine;
+    private SM2SignEngine signer;
 
     private ECPrivateKeyParameters privateKeyParams;
     private ECPublicKeyParameters publicKeyParams;
@@ -58,6 +83,42 @@ public class SM2 extends AbstractAsymmetricCrypto<SM2> {
     private DSAEncoding encoding = StandardDSAEncoding.INSTANCE;
     private Digest digest = new SM3Digest();
     private SM2Engine.Mode mode = SM2Engine.Mode.C1C3C2;
+    private SM2CipherFormat cipherFormat = SM2CipherFormat.RAW;
+
+    /**
+     * 是否为并发模式，并发模式下每个线程独立持有{@link SM2CipherEngine}、{@link SM2SignEngine}及摘要对象，不再使用锁
+     */
+    private volatile boolean concurrent;
+    private transient volatile ThreadLocal<SM2CipherEngine> localEngine;
+    private transient volatile ThreadLocal<SM2SignEngine> localSigner;
+    /**
+     * 公钥预计算表缓存，为{@code null}表示不使用缓存
+     */
+    private transient SM2PublicKeyCache publicKeyCache;
+    /**
+     * 用户身份摘要Z值缓存，为{@code null}表示不使用缓存
+     */
+    private transient SM2ZCache zCache;
+    /**
+     * 签名随机数生成器，为{@code null}表示签名时即时生成随机数
+     */
+    private transient SM2NonceGenerator nonceGenerator;
+    /**
+     * 加密临时密钥生成器，{@code null}表示即时计算
+     */
+    private transient SM2EphemeralKeyGenerator ephemeralKeyGenerator;
+    /**
+     * 验签时是否使用{@link SM2MultiScalarMultiplier}
+     */
+    private boolean multiScalarVerify = true;
+    /**
+     * 加解密时并行计算KDF的数据长度阈值
+     */
+    private int kdfParallelThreshold = SM2CipherEngine.DEFAULT_PARALLEL_THRESHOLD;
+    /**
+     * 未设置公钥时，由私钥计算出的公钥参数，用于计算签名的Z值
+     */
+    private transient volatile ECPublicKeyParameters derivedPublicKeyParams;
 
     // ------------------------------------------------------------------ Constructor start
 
@@ -151,8 +212,8 @@ public class SM2 extends AbstractAsymmetricCrypto<SM2> {
      */
     public SM2(ECPrivateKeyParameters privateKeyParams, ECPublicKeyParameters publicKeyParams) {
         super(ALGORITHM_SM2, null, null);
-        this.privateKeyParams = privateKeyParams;
-        this.publicKeyParams = publicKeyParams;
+        this.privateKeyParams = ECKeyUtil.toSm2Params(privateKeyParams);
+        this.publicKeyParams = ECKeyUtil.toSm2Params(publicKeyParams);
         this.init();
     }
 
@@ -239,15 +300,21 @@ public class SM2 extends AbstractAsymmetricCrypto<SM2> {
      * @since 5.1.6
      */
     public byte[] encrypt(byte[] data, CipherParameters pubKeyParameters) throws CryptoException {
-        lock.lock();
-        final SM2Engine engine = getEngine();
+        final boolean locked = acquireLock();
+        final SM2CipherEngine engine = getEngine();
         try {
+            engine.setPointCompression(SM2CipherFormat.COMPRESSED == this.cipherFormat);
+            engine.setEphemeralKeyGenerator(this.ephemeralKeyGenerator);
             engine.init(true, pubKeyParameters);
-            return engine.processBlock(data, 0, data.length);
+            final byte[] result = engine.processBlock(data, 0, data.length);
+            if (SM2CipherFormat.ASN1 == this.cipherFormat) {
+                return SmUtil.cipherToAsn1(result, this.mode, getDomainParams(pubKeyParameters));
+            }
+            return result;
         } catch (InvalidCipherTextException e) {
             throw new CryptoException(e);
         } finally {
-            lock.unlock();
+            releaseLock(locked);
         }
     }
 
@@ -291,15 +358,19 @@ public class SM2 extends AbstractAsymmetricCrypto<SM2> {
      * @since 5.1.6
      */
     public byte[] decrypt(byte[] data, CipherParameters privateKeyParameters) throws CryptoException {
-        lock.lock();
-        final SM2Engine engine = getEngine();
+        final boolean locked = acquireLock();
+        final SM2CipherEngine engine = getEngine();
         try {
+            // ASN.1格式以SEQUENCE标签0x30开头，C1C2C3/C1C3C2格式以点编码0x02、0x03或0x04开头
+            if (data.length > 0 && ASN1_SEQUENCE_TAG == data[0]) {
+                data = SmUtil.asn1ToCipher(data, this.mode, getDomainParams(privateKeyParameters));
+            }
             engine.init(false, privateKeyParameters);
             return engine.processBlock(data, 0, data.length);
         } catch (InvalidCipherTextException e) {
             throw new CryptoException(e);
         } finally {
-            lock.unlock();
+            releaseLock(locked);
         }
     }
     // --------------------------------------------------------------------------------- Sign and Verify
@@ -346,23 +417,122 @@ public class SM2 extends AbstractAsymmetricCrypto<SM2> {
      * @return 签名
      */
     public byte[] sign(byte[] data, byte[] id) {
-        lock.lock();
-        final SM2Signer signer = getSigner();
+        return doSign(data, id, null);
+    }
+
+    /**
+     * 使用预先计算好的用户身份摘要Z值，用私钥对信息生成数字签名，签名格式为ASN1<br>
+     * 相同身份重复签名时，可通过{@link #getZ(byte[])}计算一次Z值后重复使用，省去每次签名时Z值的计算。
+     *
+     * @param data 被签名的数据数据
+     * @param z    用户身份摘要Z值，见{@link #getZ(byte[])}
+     * @return 签名
+     * @since 2.0.0
+     */
+    public byte[] signWithZ(byte[] data, byte[] z) {
+        if (null == z) {
+            throw new IllegalArgumentException("Z must be not null !");
+        }
+        return doSign(data, null, z);
+    }
+
+    /**
+     * 用私钥对预先计算好的摘要e生成数字签名，签名格式为ASN1<br>
+     * 摘要可在数据所在节点通过{@link #getE(byte[], byte[])}或{@link SM2SignEngine#calculateE(Digest, byte[], byte[])}计算，
+     * 签名方只需对定长的摘要签名，计算量与数据大小无关。
+     *
+     * @param e 摘要e = SM3(Z_A || M)
+     * @return 签名
+     * @since 2.0.0
+     */
+    public byte[] signDigest(byte[] e) {
+        final boolean locked = acquireLock();
+        final SM2SignEngine signer = getSigner();
         try {
-            CipherParameters param = new ParametersWithRandom(getCipherParameters(KeyType.PrivateKey));
-            if (id != null) {
-                param = new ParametersWithID(param, id);
-            }
-            signer.init(true, param);
-            signer.update(data, 0, data.length);
-            return signer.generateSignature();
-        } catch (org.bouncycastle.crypto.CryptoException e) {
-            throw new CryptoException(e);
+            checkDigest(signer, e);
+            signer.setNonceGenerator(this.nonceGenerator);
+            signer.init(true, getSignParameters(), EMPTY_Z);
+            return signer.generateSignature(e);
+        } catch (org.bouncycastle.crypto.CryptoException ex) {
+            throw new CryptoException(ex);
         } finally {
-            lock.unlock();
+            releaseLock(locked);
         }
     }
 
+    /**
+     * 用私钥对流中的数据生成数字签名，签名格式为ASN1<br>
+     * 数据分块读取并计算摘要，内存占用与数据大小无关，流不会被关闭。
+     *
+     * @param data 被签名的数据流
+     * @return 签名
+     * @since 2.0.0
+     */
+    public byte[] sign(InputStream data) {
+        return sign(data, null);
+    }
+
+    /**
+     * 用私钥对流中的数据生成数字签名，签名格式为ASN1<br>
+     * 数据分块读取并计算摘要，内存占用与数据大小无关，流不会被关闭。
+     *
+     * @param data 被签名的数据流
+     * @param id   可以为null，若为null，则默认withId为字节数组:"1234567812345678".getBytes()
+     * @return 签名
+     * @since 2.0.0
+     */
+    public byte[] sign(InputStream data, byte[] id) {
+        return doSign(data, id, null);
+    }
+
+    /**
+     * 用私钥对{@link ByteBuffer}中position到limit之间的数据生成数字签名，签名格式为ASN1，完成后position等于limit
+     *
+     * @param data 被签名的数据
+     * @return 签名
+     * @since 2.0.0
+     */
+    public byte[] sign(ByteBuffer data) {
+        return sign(data, null);
+    }
+
+    /**
+     * 用私钥对{@link ByteBuffer}中position到limit之间的数据生成数字签名，签名格式为ASN1，完成后position等于limit
+     *
+     * @param data 被签名的数据
+     * @param id   可以为null，若为null，则默认withId为字节数组:"1234567812345678".getBytes()
+     * @return 签名
+     * @since 2.0.0
+     */
+    public byte[] sign(ByteBuffer data, byte[] id) {
+        return doSign(data, id, null);
+    }
+
+    /**
+     * 用私钥对文件生成数字签名，签名格式为ASN1<br>
+     * 文件分段映射到内存后计算摘要，适用于大文件。
+     *
+     * @param file 被签名的文件
+     * @return 签名
+     * @since 2.0.0
+     */
+    public byte[] sign(File file) {
+        return sign(file, null);
+    }
+
+    /**
+     * 用私钥对文件生成数字签名，签名格式为ASN1<br>
+     * 文件分段映射到内存后计算摘要，适用于大文件。
+     *
+     * @param file 被签名的文件
+     * @param id   可以为null，若为null，则默认withId为字节数组:"1234567812345678".getBytes()
+     * @return 签名
+     * @since 2.0.0
+     */
+    public byte[] sign(File file, byte[] id) {
+        return doSign(file, id, null);
+    }
+
     /**
      * 用公钥检验数字签名的合法性
      *
@@ -408,27 +578,183 @@ public class SM2 extends AbstractAsymmetricCrypto<SM2> {
      * @return 是否验证通过
      */
     public boolean verify(byte[] data, byte[] sign, byte[] id) {
-        lock.lock();
-        final SM2Signer signer = getSigner();
+        return doVerify(data, sign, id, null);
+    }
+
+    /**
+     * 使用预先计算好的用户身份摘要Z值，用公钥检验数字签名的合法性
+     *
+     * @param data 数据签名后的数据
+     * @param sign 签名
+     * @param z    用户身份摘要Z值，见{@link #getZ(byte[])}
+     * @return 是否验证通过
+     * @since 2.0.0
+     */
+    public boolean verifyWithZ(byte[] data, byte[] sign, byte[] z) {
+        if (null == z) {
+            throw new IllegalArgumentException("Z must be not null !");
+        }
+        return doVerify(data, sign, null, z);
+    }
+
+    /**
+     * 用公钥检验预先计算好的摘要e的数字签名的合法性
+     *
+     * @param e    摘要e = SM3(Z_A || M)，见{@link #getE(byte[], byte[])}
+     * @param sign 签名
+     * @return 是否验证通过
+     * @since 2.0.0
+     */
+    public boolean verifyDigest(byte[] e, byte[] sign) {
+        final boolean locked = acquireLock();
+        final SM2SignEngine signer = getSigner();
         try {
-            CipherParameters param = getCipherParameters(KeyType.PublicKey);
-            if (id != null) {
-                param = new ParametersWithID(param, id);
-            }
-            signer.init(false, param);
-            signer.update(data, 0, data.length);
-            return signer.verifySignature(sign);
+            checkDigest(signer, e);
+            signer.setMultiScalarVerify(this.multiScalarVerify);
+            signer.init(false, getCipherParameters(KeyType.PublicKey), EMPTY_Z);
+            return signer.verifySignature(e, sign);
         } finally {
-            lock.unlock();
+            releaseLock(locked);
         }
     }
 
+    /**
+     * 用公钥检验流中数据的数字签名的合法性<br>
+     * 数据分块读取并计算摘要，内存占用与数据大小无关，流不会被关闭。
+     *
+     * @param data 签名的数据流
+     * @param sign 签名
+     * @return 是否验证通过
+     * @since 2.0.0
+     */
+    public boolean verify(InputStream data, byte[] sign) {
+        return verify(data, sign, null);
+    }
+
+    /**
+     * 用公钥检验流中数据的数字签名的合法性<br>
+     * 数据分块读取并计算摘要，内存占用与数据大小无关，流不会被关闭。
+     *
+     * @param data 签名的数据流
+     * @param sign 签名
+     * @param id   可以为null，若为null，则默认withId为字节数组:"1234567812345678".getBytes()
+     * @return 是否验证通过
+     * @since 2.0.0
+     */
+    public boolean verify(InputStream data, byte[] sign, byte[] id) {
+        return doVerify(data, sign, id, null);
+    }
+
+    /**
+     * 用公钥检验{@link ByteBuffer}中position到limit之间数据的数字签名的合法性，完成后position等于limit
+     *
+     * @param data 签名的数据
+     * @param sign 签名
+     * @return 是否验证通过
+     * @since 2.0.0
+     */
+    public boolean verify(ByteBuffer data, byte[] sign) {
+        return verify(data, sign, null);
+    }
+
+    /**
+     * 用公钥检验{@link ByteBuffer}中position到limit之间数据的数字签名的合法性，完成后position等于limit
+     *
+     * @param data 签名的数据
+     * @param sign 签名
+     * @param id   可以为null，若为null，则默认withId为字节数组:"1234567812345678".getBytes()
+     * @return 是否验证通过
+     * @since 2.0.0
+     */
+    public boolean verify(ByteBuffer data, byte[] sign, byte[] id) {
+        return doVerify(data, sign, id, null);
+    }
+
+    /**
+     * 用公钥检验文件的数字签名的合法性<br>
+     * 文件分段映射到内存后计算摘要，适用于大文件。
+     *
+     * @param file 签名的文件
+     * @param sign 签名
+     * @return 是否验证通过
+     * @since 2.0.0
+     */
+    public boolean verify(File file, byte[] sign) {
+        return verify(file, sign, null);
+    }
+
+    /**
+     * 用公钥检验文件的数字签名的合法性<br>
+     * 文件分段映射到内存后计算摘要，适用于大文件。
+     *
+     * @param file 签名的文件
+     * @param sign 签名
+     * @param id   可以为null，若为null，则默认withId为字节数组:"1234567812345678".getBytes()
+     * @return 是否验证通过
+     * @since 2.0.0
+     */
+    public boolean verify(File file, byte[] sign, byte[] id) {
+        return doVerify(file, sign, id, null);
+    }
+
+    /**
+     * 计算用户身份摘要Z值（Z_A），即对曲线参数、公钥和用户ID的摘要<br>
+     * 使用设置的公钥计算，未设置公钥时使用私钥计算出的公钥。设置了{@link SM2ZCache}时优先从缓存中获取。
+     *
+     * @param id 用户ID，可以为null，若为null，则默认withId为字节数组:"1234567812345678".getBytes()
+     * @return Z值
+     * @since 2.0.0
+     */
+    public byte[] getZ(byte[] id) {
+        final boolean locked = acquireLock();
+        final SM2SignEngine signer = getSigner();
+        try {
+            return calculateZ(signer, getZPublicParams(), id);
+        } finally {
+            releaseLock(locked);
+        }
+    }
+
+    /**
+     * 计算待签名摘要e = SM3(Z_A || M)，结果可用于{@link #signDigest(byte[])}和{@link #verifyDigest(byte[], byte[])}<br>
+     * 只需公钥（或私钥），可在数据所在节点计算后只将摘要发送给签名方。
+     *
+     * @param data 数据
+     * @param id   用户ID，可以为null，若为null，则默认withId为字节数组:"1234567812345678".getBytes()
+     * @return 摘要e
+     * @since 2.0.0
+     */
+    public byte[] getE(byte[] data, byte[] id) {
+        final boolean locked = acquireLock();
+        final SM2SignEngine signer = getSigner();
+        try {
+            final byte[] z = calculateZ(signer, getZPublicParams(), id);
+            return SM2SignEngine.calculateE(signer.getDigest(), z, data);
+        } finally {
+            releaseLock(locked);
+        }
+    }
+
+    /**
+     * 使用此对象的私钥创建一次SM2密钥交换（GM/T 0003.3），见{@link SM2KeyAgreement}<br>
+     * 每次握手需创建新的对象，协商出的会话密钥可放入{@link cn.csfz.crypto.asymmetric.sm2.SM2SessionKeyCache}供后续消息使用。
+     *
+     * @param initiator 是否为发起方
+     * @param id        己方用户ID，可以为null，若为null，则默认withId为字节数组:"1234567812345678".getBytes()
+     * @return {@link SM2KeyAgreement}
+     * @since 2.0.0
+     */
+    public SM2KeyAgreement createKeyAgreement(boolean initiator, byte[] id) {
+        return new SM2KeyAgreement(initiator, (ECPrivateKeyParameters) getCipherParameters(KeyType.PrivateKey), id);
+    }
+
     @Override
     public SM2 setPrivateKey(PrivateKey privateKey) {
         super.setPrivateKey(privateKey);
 
         // 重新初始化密钥参数，防止重新设置密钥时导致密钥无法更新
-        this.privateKeyParams = BCUtil.toParams(privateKey);
+        this.privateKeyParams = ECKeyUtil.toSm2Params(BCUtil.toParams(privateKey));
+        this.derivedPublicKeyParams = null;
 
         return this;
     }
@@ -441,7 +767,9 @@ public class SM2 extends AbstractAsymmetricCrypto<SM2> {
      * @since 5.2.0
      */
     public SM2 setPrivateKeyParams(ECPrivateKeyParameters privateKeyParams) {
-        this.privateKeyParams = privateKeyParams;
+        // sm2p256v1曲线统一使用专用曲线实现
+        this.privateKeyParams = ECKeyUtil.toSm2Params(privateKeyParams);
+        this.derivedPublicKeyParams = null;
         return this;
     }
 
@@ -450,7 +778,7 @@ public class SM2 extends AbstractAsymmetricCrypto<SM2> {
         super.setPublicKey(publicKey);
 
         // 重新初始化密钥参数，防止重新设置密钥时导致密钥无法更新
-        this.publicKeyParams = BCUtil.toParams(publicKey);
+        this.publicKeyParams = ECKeyUtil.toSm2Params(BCUtil.toParams(publicKey));
 
         return this;
     }
@@ -462,7 +790,8 @@ public class SM2 extends AbstractAsymmetricCrypto<SM2> {
      * @return this
      */
     public SM2 setPublicKeyParams(ECPublicKeyParameters publicKeyParams) {
-        this.publicKeyParams = publicKeyParams;
+        // sm2p256v1曲线统一使用专用曲线实现
+        this.publicKeyParams = ECKeyUtil.toSm2Params(publicKeyParams);
         return this;
     }
 
@@ -486,6 +815,7 @@ public class SM2 extends AbstractAsymmetricCrypto<SM2> {
     public SM2 setEncoding(DSAEncoding encoding) {
         this.encoding = encoding;
         this.signer = null;
+        resetLocal();
         return this;
     }
 
@@ -500,6 +830,7 @@ public class SM2 extends AbstractAsymmetricCrypto<SM2> {
         this.digest = digest;
         this.engine = null;
         this.signer = null;
+        resetLocal();
         return this;
     }
 
@@ -512,9 +843,139 @@ public class SM2 extends AbstractAsymmetricCrypto<SM2> {
     public SM2 setMode(SM2Engine.Mode mode) {
         this.mode = mode;
         this.engine = null;
+        resetLocal();
         return this;
     }
 
+    /**
+     * 获取SM2模式
+     *
+     * @return {@link SM2Engine.Mode}
+     * @since 2.0.0
+     */
+    public SM2Engine.Mode getMode() {
+        return this.mode;
+    }
+
+    /**
+     * 设置加密结果的密文格式，默认为{@link SM2CipherFormat#RAW}<br>
+     * 解密时自动识别密文格式，与此设置无关。
+     *
+     * @param cipherFormat {@link SM2CipherFormat}
+     * @return this
+     * @since 2.0.0
+     */
+    public SM2 setCipherFormat(SM2CipherFormat cipherFormat) {
+        this.cipherFormat = cipherFormat;
+        return this;
+    }
+
+    /**
+     * 设置是否为并发模式<br>
+     * 默认模式下所有的加解密、签名和验签操作共用一个{@link SM2CipherEngine}和{@link SM2SignEngine}，并使用锁串行执行；<br>
+     * 并发模式下密钥参数在多个线程间共享，每个线程独立持有{@link SM2CipherEngine}、{@link SM2SignEngine}和摘要对象，操作不再加锁，
+     * 因此一个SM2对象即可被多个线程同时使用。<br>
+     * 并发模式要求摘要对象实现{@link Memoable}（如默认的{@link SM3Digest}），且使用期间不应再修改密钥。
+     *
+     * @param concurrent 是否为并发模式
+     * @return this
+     */
+    public SM2 setConcurrent(boolean concurrent) {
+        this.concurrent = concurrent;
+        resetLocal();
+        return this;
+    }
+
+    /**
+     * 设置公钥预计算表缓存，设置后验签和公钥加密自动使用缓存中公钥的预计算表<br>
+     * 缓存可以在多个SM2对象之间共享，适用于频繁使用少量固定公钥（如合作方公钥）验签或加密的场景。
+     *
+     * @param publicKeyCache {@link SM2PublicKeyCache}，{@code null}表示不使用缓存
+     * @return this
+     */
+    public SM2 setPublicKeyCache(SM2PublicKeyCache publicKeyCache) {
+        this.publicKeyCache = publicKeyCache;
+        return this;
+    }
+
+    /**
+     * 设置用户身份摘要Z值缓存，设置后签名和验签时相同公钥和ID的Z值只计算一次<br>
+     * 缓存可以在多个SM2对象之间共享。
+     *
+     * @param zCache {@link SM2ZCache}，{@code null}表示不使用缓存
+     * @return this
+     * @since 2.0.0
+     */
+    public SM2 setZCache(SM2ZCache zCache) {
+        this.zCache = zCache;
+        return this;
+    }
+
+    /**
+     * 设置加解密时并行计算KDF的数据长度阈值，默认{@link SM2CipherEngine#DEFAULT_PARALLEL_THRESHOLD}<br>
+     * 数据长度达到此值时，KDF的各块在{@link java.util.concurrent.ForkJoinPool#commonPool()}中并行计算，密文格式不变。
+     *
+     * @param kdfParallelThreshold 阈值（字节），小于等于0表示始终串行
+     * @return this
+     * @since 2.0.0
+     */
+    public SM2 setKdfParallelThreshold(int kdfParallelThreshold) {
+        this.kdfParallelThreshold = kdfParallelThreshold;
+        this.engine = null;
+        resetLocal();
+        return this;
+    }
+
+    /**
+     * 设置签名随机数生成器，如使用{@link cn.csfz.crypto.asymmetric.sm2.SM2NoncePool}预先计算签名随机数，
+     * 签名时只需计算摘要和少量模运算；或使用{@link cn.csfz.crypto.asymmetric.sm2.SM2DeterministicNonceGenerator}
+     * 由私钥和摘要确定性地推导随机数，签名时不读取系统熵源
+     *
+     * @param nonceGenerator {@link SM2NonceGenerator}，{@code null}表示签名时即时生成随机数
+     * @return this
+     * @since 2.0.0
+     */
+    public SM2 setNonceGenerator(SM2NonceGenerator nonceGenerator) {
+        this.nonceGenerator = nonceGenerator;
+        return this;
+    }
+
+    /**
+     * 设置加密临时密钥生成器，如使用{@link cn.csfz.crypto.asymmetric.sm2.SM2EphemeralKeyPool}为常用的接收方预先计算C1和k·P_B，
+     * 加密时只需计算KDF、异或和C3
+     *
+     * @param ephemeralKeyGenerator {@link SM2EphemeralKeyGenerator}，{@code null}表示加密时即时计算
+     * @return this
+     * @since 2.0.0
+     */
+    public SM2 setEphemeralKeyGenerator(SM2EphemeralKeyGenerator ephemeralKeyGenerator) {
+        this.ephemeralKeyGenerator = ephemeralKeyGenerator;
+        return this;
+    }
+
+    /**
+     * 设置验签时是否使用{@link SM2MultiScalarMultiplier}计算s·G + t·Q（默认使用），
+     * 基点使用宽窗口预计算表，与公钥的wNAF交错计算
+     *
+     * @param multiScalarVerify {@code false}表示使用BC的通用实现
+     * @return this
+     * @since 2.0.0
+     */
+    public SM2 setMultiScalarVerify(boolean multiScalarVerify) {
+        this.multiScalarVerify = multiScalarVerify;
+        return this;
+    }
+
+    /**
+     * 是否为并发模式
+     *
+     * @return 是否为并发模式
+     * @see #setConcurrent(boolean)
+     */
+    public boolean isConcurrent() {
+        return this.concurrent;
+    }
+
     /**
      * 获得私钥D值（编码后的私钥）
      *
@@ -570,7 +1031,8 @@ public class SM2 extends AbstractAsymmetricCrypto<SM2> {
                 if (this.publicKeyParams == null) {
                     throw new IllegalArgumentException("PublicKey must be not null !");
                 }
-                return this.publicKeyParams;
+                final SM2PublicKeyCache publicKeyCache = this.publicKeyCache;
+                return (null == publicKeyCache) ? this.publicKeyParams : publicKeyCache.get(this.publicKeyParams);
             case PrivateKey:
                 if (this.privateKeyParams == null) {
                     throw new IllegalArgumentException("PrivateKey must be not null !");
@@ -582,35 +1044,310 @@ public class SM2 extends AbstractAsymmetricCrypto<SM2> {
     }
 
     /**
-     * 获取{@link SM2Engine}，此对象为懒加载模式
+     * 获取签名参数，设置了{@link SM2NonceGenerator}时不需要随机数，直接使用私钥参数，避免获取默认的{@link java.security.SecureRandom}
+     *
+     * @return {@link CipherParameters}
+     */
+    private CipherParameters getSignParameters() {
+        final CipherParameters privateKeyParams = getCipherParameters(KeyType.PrivateKey);
+        return (null == this.nonceGenerator) ? new ParametersWithRandom(privateKeyParams) : privateKeyParams;
+    }
+
+    /**
+     * 签名
+     *
+     * @param data 被签名的数据，支持byte[]、{@link InputStream}、{@link ByteBuffer}和{@link File}
+     * @param id   用户ID，z为{@code null}时有效
+     * @param z    用户身份摘要Z值，{@code null}表示根据ID计算或从缓存获取
+     * @return 签名
+     */
+    private byte[] doSign(Object data, byte[] id, byte[] z) {
+        final boolean locked = acquireLock();
+        final SM2SignEngine signer = getSigner();
+        try {
+            CipherParameters param = getSignParameters();
+            signer.setNonceGenerator(this.nonceGenerator);
+            if (null == z && null != this.zCache) {
+                z = calculateZ(signer, getZPublicParams(), id);
+            }
+            if (null == z && null != id) {
+                param = new ParametersWithID(param, id);
+            }
+            signer.init(true, param, z);
+            update(signer, data);
+            return signer.generateSignature();
+        } catch (org.bouncycastle.crypto.CryptoException e) {
+            throw new CryptoException(e);
+        } finally {
+            releaseLock(locked);
+        }
+    }
+
+    /**
+     * 验签
+     *
+     * @param data 数据，支持byte[]、{@link InputStream}、{@link ByteBuffer}和{@link File}
+     * @param sign 签名
+     * @param id   用户ID，z为{@code null}时有效
+     * @param z    用户身份摘要Z值，{@code null}表示根据ID计算或从缓存获取
+     * @return 是否验证通过
+     */
+    private boolean doVerify(Object data, byte[] sign, byte[] id, byte[] z) {
+        final boolean locked = acquireLock();
+        final SM2SignEngine signer = getSigner();
+        try {
+            CipherParameters param = getCipherParameters(KeyType.PublicKey);
+            if (null == z && null != this.zCache) {
+                z = calculateZ(signer, (ECPublicKeyParameters) param, id);
+            }
+            if (null == z && null != id) {
+                param = new ParametersWithID(param, id);
+            }
+            signer.setMultiScalarVerify(this.multiScalarVerify);
+            signer.init(false, param, z);
+            update(signer, data);
+            return signer.verifySignature(sign);
+        } finally {
+            releaseLock(locked);
+        }
+    }
+
+    /**
+     * 检查摘要长度是否与签名使用的摘要算法一致
+     *
+     * @param signer 签名引擎
+     * @param e      摘要
+     */
+    private static void checkDigest(SM2SignEngine signer, byte[] e) {
+        if (null == e || e.length != signer.getDigest().getDigestSize()) {
+            throw new IllegalArgumentException("Digest length must be " + signer.getDigest().getDigestSize() + " !");
+        }
+    }
+
+    /**
+     * 使用数据更新签名引擎的摘要，流和文件分块读取
+     *
+     * @param signer 签名引擎
+     * @param data   数据，支持byte[]、{@link InputStream}、{@link ByteBuffer}和{@link File}
+     * @throws IORuntimeException IO异常
+     */
+    private static void update(SM2SignEngine signer, Object data) throws IORuntimeException {
+        if (data instanceof byte[]) {
+            final byte[] bytes = (byte[]) data;
+            signer.update(bytes, 0, bytes.length);
+        } else if (data instanceof InputStream) {
+            signer.update((InputStream) data);
+        } else if (data instanceof ByteBuffer) {
+            signer.update((ByteBuffer) data);
+        } else {
+            RandomAccessFile file = null;
+            try {
+                file = new RandomAccessFile((File) data, "r");
+                signer.update(file.getChannel());
+            } catch (IOException e) {
+                throw new IORuntimeException(e);
+            } finally {
+                IoUtil.close(file);
+            }
+        }
+    }
+
+    /**
+     * 计算Z值，设置了{@link SM2ZCache}时优先从缓存中获取
+     *
+     * @param signer          签名引擎，使用其摘要对象计算
+     * @param publicKeyParams 公钥参数
+     * @param id              用户ID
+     * @return Z值
+     */
+    private byte[] calculateZ(SM2SignEngine signer, ECPublicKeyParameters publicKeyParams, byte[] id) {
+        final SM2ZCache zCache = this.zCache;
+        if (null != zCache) {
+            return zCache.get(publicKeyParams, id, signer.getDigest());
+        }
+        return SM2SignEngine.calculateZ(signer.getDigest(), publicKeyParams.getParameters(), publicKeyParams.getQ(), id);
+    }
+
+    /**
+     * 获取用于计算Z值的公钥参数，未设置公钥时由私钥计算并保存
+     *
+     * @return 公钥参数
+     */
+    private ECPublicKeyParameters getZPublicParams() {
+        if (null != this.publicKeyParams) {
+            return (ECPublicKeyParameters) getCipherParameters(KeyType.PublicKey);
+        }
+        ECPublicKeyParameters derived = this.derivedPublicKeyParams;
+        if (null == derived) {
+            final ECPrivateKeyParameters privateKeyParams = (ECPrivateKeyParameters) getCipherParameters(KeyType.PrivateKey);
+            final ECDomainParameters domainParams = privateKeyParams.getParameters();
+            derived = new ECPublicKeyParameters(
+                    SM2FixedPointMultiplier.INSTANCE.multiply(domainParams.getG(), privateKeyParams.getD()), domainParams);
+            this.derivedPublicKeyParams = derived;
+        }
+        return derived;
+    }
+
+    /**
+     * 获取{@link SM2CipherEngine}，此对象为懒加载模式
      *
-     * @return {@link SM2Engine}
+     * @return {@link SM2CipherEngine}
      */
-    private SM2Engine getEngine() {
+    private SM2CipherEngine getEngine() {
+        if (this.concurrent) {
+            return getLocalEngine();
+        }
         if (null == this.engine) {
             if (this.digest == null) {
                 throw new RuntimeException("digest must be not null !");
             }
-            this.engine = new SM2Engine(this.digest, this.mode);
+            this.engine = createEngine(this.digest, this.mode, this.kdfParallelThreshold);
         }
         this.digest.reset();
         return this.engine;
     }
 
     /**
-     * 获取{@link SM2Signer}，此对象为懒加载模式
+     * 获取{@link SM2SignEngine}，此对象为懒加载模式
      *
-     * @return {@link SM2Signer}
+     * @return {@link SM2SignEngine}
      */
-    private SM2Signer getSigner() {
+    private SM2SignEngine getSigner() {
+        if (this.concurrent) {
+            return getLocalSigner();
+        }
         if (null == this.signer) {
             if (this.digest == null) {
                 throw new RuntimeException("digest must be not null !");
             }
-            this.signer = new SM2Signer(this.encoding, this.digest);
+            this.signer = createSigner(this.encoding, this.digest);
         }
         this.digest.reset();
         return this.signer;
     }
+
+    /**
+     * 获取当前线程的{@link SM2CipherEngine}，用于并发模式
+     *
+     * @return {@link SM2CipherEngine}
+     */
+    private SM2CipherEngine getLocalEngine() {
+        ThreadLocal<SM2CipherEngine> localEngine = this.localEngine;
+        if (null == localEngine) {
+            localEngine = new ThreadLocal<SM2CipherEngine>();
+            this.localEngine = localEngine;
+        }
+        SM2CipherEngine engine = localEngine.get();
+        if (null == engine) {
+            engine = createEngine(createDigest(), this.mode, this.kdfParallelThreshold);
+            localEngine.set(engine);
+        }
+        return engine;
+    }
+
+    /**
+     * 获取当前线程的{@link SM2SignEngine}，用于并发模式
+     *
+     * @return {@link SM2SignEngine}
+     */
+    private SM2SignEngine getLocalSigner() {
+        ThreadLocal<SM2SignEngine> localSigner = this.localSigner;
+        if (null == localSigner) {
+            localSigner = new ThreadLocal<SM2SignEngine>();
+            this.localSigner = localSigner;
+        }
+        SM2SignEngine signer = localSigner.get();
+        if (null == signer) {
+            signer = createSigner(this.encoding, createDigest());
+            localSigner.set(signer);
+        }
+        return signer;
+    }
+
+    /**
+     * 获取密钥参数中的曲线参数
+     *
+     * @param keyParameters 密钥参数，可以为{@link ParametersWithRandom}
+     * @return {@link ECDomainParameters}
+     */
+    private static ECDomainParameters getDomainParams(CipherParameters keyParameters) {
+        if (keyParameters instanceof ParametersWithRandom) {
+            keyParameters = ((ParametersWithRandom) keyParameters).getParameters();
+        }
+        return ((ECKeyParameters) keyParameters).getParameters();
+    }
+
+    /**
+     * 创建{@link SM2CipherEngine}
+     *
+     * @param digest            摘要
+     * @param mode              密文排列模式
+     * @param parallelThreshold 并行计算KDF的数据长度阈值
+     * @return {@link SM2CipherEngine}
+     */
+    private static SM2CipherEngine createEngine(Digest digest, SM2Engine.Mode mode, int parallelThreshold) {
+        return new SM2CipherEngine(digest, mode).setParallelThreshold(parallelThreshold);
+    }
+
+    /**
+     * 创建{@link SM2SignEngine}
+     *
+     * @param encoding 签名编码
+     * @param digest   摘要
+     * @return {@link SM2SignEngine}
+     */
+    private static SM2SignEngine createSigner(DSAEncoding encoding, Digest digest) {
+        return new SM2SignEngine(encoding, digest);
+    }
+
+    /**
+     * 根据设置的摘要对象复制一个新的摘要对象，用于并发模式下每个线程独立持有
+     *
+     * @return {@link Digest}
+     */
+    private Digest createDigest() {
+        final Digest digest = this.digest;
+        if (digest == null) {
+            throw new RuntimeException("digest must be not null !");
+        }
+        if (false == digest instanceof Memoable) {
+            throw new CryptoException("Digest [{}] is not Memoable, can not be used in concurrent mode !", digest.getAlgorithmName());
+        }
+        final Digest copy = (Digest) ((Memoable) digest).copy();
+        copy.reset();
+        return copy;
+    }
+
+    /**
+     * 清除各线程持有的{@link SM2CipherEngine}和{@link SM2SignEngine}，在模式、编码或摘要变更后重新创建
+     */
+    private void resetLocal() {
+        this.localEngine = null;
+        this.localSigner = null;
+    }
+
+    /**
+     * 非并发模式下加锁，并发模式下不加锁
+     *
+     * @return 是否加锁，用于{@link #releaseLock(boolean)}
+     */
+    private boolean acquireLock() {
+        if (this.concurrent) {
+            return false;
+        }
+        lock.lock();
+        return true;
+    }
+
+    /**
+     * 释放{@link #acquireLock()}获得的锁
+     *
+     * @param locked 是否加锁
+     */
+    private void releaseLock(boolean locked) {
+        if (locked) {
+            lock.unlock();
+        }
+    }
     // ------------------------------------------------------------------------------------------------------------------------- Private method end
 }
@@ -0,0 +1,334 @@
+package cn.csfz.crypto.asymmetric.sm2;
+
+import org.bouncycastle.crypto.digests.SM3Digest;
+import org.bouncycastle.crypto.params.ECPublicKeyParameters;
+import org.bouncycastle.crypto.signers.DSAEncoding;
+import org.bouncycastle.crypto.signers.PlainDSAEncoding;
+import org.bouncycastle.crypto.signers.StandardDSAEncoding;
+import org.bouncycastle.math.ec.ECPoint;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * SM2批量验签<br>
+ * 将大量（数据，签名，公钥）验签任务分发到{@link ForkJoinPool}中并行执行，并按公钥分组：
+ * 同一公钥的验签共享同一个公钥点对象（及其上的预计算表）和Z值，每个公钥只做一次准备工作。
+ *
+ * <pre>
+ * List&lt;SM2BatchVerifier.Item&gt; items = ...;
+ * BitSet result = new SM2BatchVerifier().verify(items);
+ * </pre>
+ *
+ * <p>
+ * 此对象线程安全，可重复使用。
+ *
+ * @since 2.0.0
+ */
+public class SM2BatchVerifier {
+
+	/**
+	 * 每个子任务至少处理的验签数
+	 */
+	private static final int DEFAULT_THRESHOLD = 64;
+
+	private final ForkJoinPool pool;
+	private DSAEncoding encoding = StandardDSAEncoding.INSTANCE;
+	private SM2PublicKeyCache publicKeyCache;
+	private int threshold = DEFAULT_THRESHOLD;
+	private boolean multiScalarVerify = true;
+
+	/**
+	 * 构造，使用{@link ForkJoinPool#commonPool()}
+	 */
+	public SM2BatchVerifier() {
+		this(ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * 构造
+	 *
+	 * @param pool 执行验签的{@link ForkJoinPool}
+	 */
+	public SM2BatchVerifier(ForkJoinPool pool) {
+		this.pool = pool;
+	}
+
+	/**
+	 * 设置签名编码，默认为ASN1（{@link StandardDSAEncoding}）
+	 *
+	 * @param encoding {@link DSAEncoding}
+	 * @return this
+	 */
+	public SM2BatchVerifier setEncoding(DSAEncoding encoding) {
+		this.encoding = encoding;
+		return this;
+	}
+
+	/**
+	 * 设置签名编码为R||S（{@link PlainDSAEncoding}）
+	 *
+	 * @return this
+	 */
+	public SM2BatchVerifier usePlainEncoding() {
+		return setEncoding(PlainDSAEncoding.INSTANCE);
+	}
+
+	/**
+	 * 设置公钥预计算表缓存，设置后各批次之间也复用公钥的预计算表
+	 *
+	 * @param publicKeyCache {@link SM2PublicKeyCache}，{@code null}表示只在批次内复用
+	 * @return this
+	 */
+	public SM2BatchVerifier setPublicKeyCache(SM2PublicKeyCache publicKeyCache) {
+		this.publicKeyCache = publicKeyCache;
+		return this;
+	}
+
+	/**
+	 * 设置每个子任务至少处理的验签数，默认64
+	 *
+	 * @param threshold 子任务最少验签数
+	 * @return this
+	 */
+	public SM2BatchVerifier setThreshold(int threshold) {
+		this.threshold = Math.max(1, threshold);
+		return this;
+	}
+
+	/**
+	 * 设置验签时是否使用{@link SM2MultiScalarMultiplier}计算s·G + t·Q，默认使用
+	 *
+	 * @param multiScalarVerify 是否使用{@link SM2MultiScalarMultiplier}
+	 * @return this
+	 * @see SM2SignEngine#setMultiScalarVerify(boolean)
+	 */
+	public SM2BatchVerifier setMultiScalarVerify(boolean multiScalarVerify) {
+		this.multiScalarVerify = multiScalarVerify;
+		return this;
+	}
+
+	/**
+	 * 批量验签，验证所有项
+	 *
+	 * @param items 验签项
+	 * @return 验签结果，第i位为true表示第i项验签通过
+	 */
+	public BitSet verify(List<Item> items) {
+		return verify(items, false);
+	}
+
+	/**
+	 * 批量验签，遇到第一个失败项即停止
+	 *
+	 * @param items 验签项
+	 * @return 是否全部验签通过
+	 */
+	public boolean verifyAll(List<Item> items) {
+		return verify(items, true).cardinality() == items.size();
+	}
+
+	/**
+	 * 批量验签
+	 *
+	 * @param items    验签项
+	 * @param failFast 是否遇到第一个失败项即停止，停止后未验证的项在结果中为false
+	 * @return 验签结果，第i位为true表示第i项验签通过
+	 */
+	public BitSet verify(List<Item> items, boolean failFast) {
+		final int size = items.size();
+		final BitSet result = new BitSet(size);
+		if (0 == size) {
+			return result;
+		}
+
+		// 按公钥分组，组内使用同一个公钥参数对象，共享其预计算表
+		final Map<ECPoint, Group> groups = new LinkedHashMap<ECPoint, Group>();
+		for (int i = 0; i < size; i++) {
+			final ECPublicKeyParameters publicKey = items.get(i).publicKey;
+			Group group = groups.get(publicKey.getQ());
+			if (null == group) {
+				group = new Group(getPublicKeyParams(publicKey));
+				groups.put(publicKey.getQ(), group);
+			}
+			group.count++;
+		}
+
+		// 按分组排列验签顺序，使同一公钥的验签尽量落在同一子任务中
+		final int[] order = new int[size];
+		final Group[] orderGroups = new Group[size];
+		int offset = 0;
+		for (Group group : groups.values()) {
+			group.offset = offset;
+			offset += group.count;
+		}
+		for (int i = 0; i < size; i++) {
+			final Group group = groups.get(items.get(i).publicKey.getQ());
+			order[group.offset] = i;
+			orderGroups[group.offset] = group;
+			group.offset++;
+		}
+
+		final long[] words = new long[(size + 63) >>> 6];
+		this.pool.invoke(new VerifyTask(items, order, orderGroups, 0, size, words, failFast ? new AtomicBoolean() : null));
+		for (int i = 0; i < size; i++) {
+			if (0 != (words[i >>> 6] & (1L << i))) {
+				result.set(i);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * 获取公钥参数，设置了缓存时从缓存中获取
+	 *
+	 * @param publicKey 公钥参数
+	 * @return 公钥参数
+	 */
+	private ECPublicKeyParameters getPublicKeyParams(ECPublicKeyParameters publicKey) {
+		final SM2PublicKeyCache publicKeyCache = this.publicKeyCache;
+		return (null == publicKeyCache) ? publicKey : publicKeyCache.get(publicKey);
+	}
+
+	/**
+	 * 验签项
+	 */
+	public static class Item {
+		private final byte[] data;
+		private final byte[] sign;
+		private final ECPublicKeyParameters publicKey;
+		private final byte[] id;
+
+		/**
+		 * 构造，使用默认ID
+		 *
+		 * @param data      数据
+		 * @param sign      签名
+		 * @param publicKey 公钥参数
+		 */
+		public Item(byte[] data, byte[] sign, ECPublicKeyParameters publicKey) {
+			this(data, sign, publicKey, null);
+		}
+
+		/**
+		 * 构造
+		 *
+		 * @param data      数据
+		 * @param sign      签名
+		 * @param publicKey 公钥参数
+		 * @param id        用户ID，{@code null}表示默认ID
+		 */
+		public Item(byte[] data, byte[] sign, ECPublicKeyParameters publicKey, byte[] id) {
+			this.data = data;
+			this.sign = sign;
+			this.publicKey = publicKey;
+			this.id = (null == id) ? SM2SignEngine.DEFAULT_USER_ID : id;
+		}
+	}
+
+	/**
+	 * 同一公钥的验签分组
+	 */
+	private static class Group {
+		private final ECPublicKeyParameters publicKey;
+		private int count;
+		private int offset;
+
+		Group(ECPublicKeyParameters publicKey) {
+			this.publicKey = publicKey;
+		}
+	}
+
+	/**
+	 * 验签任务
+	 */
+	private class VerifyTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		private final List<Item> items;
+		private final int[] order;
+		private final Group[] groups;
+		private final int from;
+		private final int to;
+		private final long[] words;
+		private final AtomicBoolean failed;
+
+		VerifyTask(List<Item> items, int[] order, Group[] groups, int from, int to, long[] words, AtomicBoolean failed) {
+			this.items = items;
+			this.order = order;
+			this.groups = groups;
+			this.from = from;
+			this.to = to;
+			this.words = words;
+			this.failed = failed;
+		}
+
+		@Override
+		protected void compute() {
+			if (this.to - this.from > threshold) {
+				final int mid = (this.from + this.to) >>> 1;
+				invokeAll(new VerifyTask(items, order, groups, from, mid, words, failed),
+						new VerifyTask(items, order, groups, mid, to, words, failed));
+				return;
+			}
+
+			final SM2SignEngine signer = new SM2SignEngine(encoding, new SM3Digest());
+			signer.setMultiScalarVerify(multiScalarVerify);
+			// 子任务内同一公钥和ID的Z值只计算一次
+			final Map<Group, List<byte[][]>> zMap = new HashMap<Group, List<byte[][]>>();
+			for (int i = this.from; i < this.to; i++) {
+				if (null != this.failed && this.failed.get()) {
+					return;
+				}
+				final int index = this.order[i];
+				final Item item = this.items.get(index);
+				final Group group = this.groups[i];
+
+				signer.init(false, group.publicKey, getZ(zMap, group, item.id, signer));
+				signer.update(item.data, 0, item.data.length);
+				if (signer.verifySignature(item.sign)) {
+					setBit(index);
+				} else if (null != this.failed) {
+					this.failed.set(true);
+				}
+			}
+		}
+
+		/**
+		 * 获取分组内指定ID的Z值
+		 */
+		private byte[] getZ(Map<Group, List<byte[][]>> zMap, Group group, byte[] id, SM2SignEngine signer) {
+			List<byte[][]> zList = zMap.get(group);
+			if (null == zList) {
+				zList = new ArrayList<byte[][]>(1);
+				zMap.put(group, zList);
+			}
+			for (byte[][] idAndZ : zList) {
+				if (Arrays.equals(idAndZ[0], id)) {
+					return idAndZ[1];
+				}
+			}
+			final byte[] z = SM2SignEngine.calculateZ(signer.getDigest(),
+					group.publicKey.getParameters(), group.publicKey.getQ(), id);
+			zList.add(new byte[][]{id, z});
+			return z;
+		}
+
+		/**
+		 * 设置结果位，不同子任务可能写同一个long，因此加锁
+		 */
+		private void setBit(int index) {
+			synchronized (this.words) {
+				this.words[index >>> 6] |= 1L << index;
+			}
+		}
+	}
+}
@@ -0,0 +1,430 @@
+package cn.csfz.crypto.asymmetric.sm2;
+
+import org.bouncycastle.crypto.CipherParameters;
+import org.bouncycastle.crypto.CryptoServicesRegistrar;
+import org.bouncycastle.crypto.Digest;
+import org.bouncycastle.crypto.InvalidCipherTextException;
+import org.bouncycastle.crypto.engines.SM2Engine;
+import org.bouncycastle.crypto.params.ECDomainParameters;
+import org.bouncycastle.crypto.params.ECKeyParameters;
+import org.bouncycastle.crypto.params.ECPrivateKeyParameters;
+import org.bouncycastle.crypto.params.ECPublicKeyParameters;
+import org.bouncycastle.crypto.params.ParametersWithRandom;
+import org.bouncycastle.math.ec.ECConstants;
+import org.bouncycastle.math.ec.ECPoint;
+import org.bouncycastle.util.Arrays;
+import org.bouncycastle.util.BigIntegers;
+import org.bouncycastle.util.Memoable;
+import org.bouncycastle.util.Pack;
+
+import java.math.BigInteger;
+import java.security.SecureRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * SM2加解密引擎，密文与BC的{@link SM2Engine}一致（C1C3C2或C1C2C3）<br>
+ * 与BC实现相比：
+ * <ul>
+ *     <li>k·G使用{@link SM2FixedPointMultiplier}基点预计算表计算</li>
+ *     <li>密文直接在结果数组中生成，不再额外拼接复制</li>
+ *     <li>C1支持压缩格式（33字节），解密时自动识别</li>
+ *     <li>数据长度达到阈值时，KDF的各计数器块在{@link ForkJoinPool}中并行计算并原地异或，加密时C3与KDF同时计算</li>
+ *     <li>可通过{@link #setEphemeralKeyGenerator(SM2EphemeralKeyGenerator)}使用预先计算好的临时密钥（如{@link SM2EphemeralKeyPool}），
+ *     加密时无需点乘</li>
+ * </ul>
+ * 并行计算要求摘要实现{@link Memoable}（如SM3），否则始终串行计算。
+ *
+ * <p>
+ * 此对象非线程安全。
+ *
+ * @since 2.0.0
+ */
+public class SM2CipherEngine implements ECConstants {
+
+	/**
+	 * 默认并行计算KDF的数据长度阈值
+	 */
+	public static final int DEFAULT_PARALLEL_THRESHOLD = 16 * 1024;
+	/**
+	 * 每个并行子任务至少计算的KDF块数
+	 */
+	private static final int MIN_TASK_BLOCKS = 128;
+
+	private final Digest digest;
+	private final SM2Engine.Mode mode;
+	private int parallelThreshold = DEFAULT_PARALLEL_THRESHOLD;
+	private boolean pointCompression;
+	private ForkJoinPool pool = ForkJoinPool.commonPool();
+	private SM2EphemeralKeyGenerator ephemeralKeyGenerator;
+
+	private boolean forEncryption;
+	private ECKeyParameters ecKey;
+	private ECDomainParameters ecParams;
+	private int curveLength;
+	private SecureRandom random;
+
+	/**
+	 * 构造
+	 *
+	 * @param digest 摘要，一般为SM3
+	 * @param mode   密文排列模式
+	 */
+	public SM2CipherEngine(Digest digest, SM2Engine.Mode mode) {
+		this.digest = digest;
+		this.mode = mode;
+	}
+
+	/**
+	 * 设置并行计算KDF的数据长度阈值，明文长度达到此值时并行计算
+	 *
+	 * @param parallelThreshold 阈值（字节），小于等于0表示始终串行
+	 * @return this
+	 */
+	public SM2CipherEngine setParallelThreshold(int parallelThreshold) {
+		this.parallelThreshold = parallelThreshold;
+		return this;
+	}
+
+	/**
+	 * 设置加密时C1是否使用压缩格式，压缩后C1长度为1 + 曲线长度（sm2p256v1为33字节），否则为1 + 2 * 曲线长度（65字节）
+	 *
+	 * @param pointCompression 是否压缩C1
+	 * @return this
+	 */
+	public SM2CipherEngine setPointCompression(boolean pointCompression) {
+		this.pointCompression = pointCompression;
+		return this;
+	}
+
+	/**
+	 * 设置并行计算使用的{@link ForkJoinPool}，默认为{@link ForkJoinPool#commonPool()}
+	 *
+	 * @param pool {@link ForkJoinPool}
+	 * @return this
+	 */
+	public SM2CipherEngine setPool(ForkJoinPool pool) {
+		this.pool = pool;
+		return this;
+	}
+
+	/**
+	 * 设置加密临时密钥生成器
+	 *
+	 * @param ephemeralKeyGenerator {@link SM2EphemeralKeyGenerator}，{@code null}表示加密时即时生成随机数并计算点乘
+	 * @return this
+	 */
+	public SM2CipherEngine setEphemeralKeyGenerator(SM2EphemeralKeyGenerator ephemeralKeyGenerator) {
+		this.ephemeralKeyGenerator = ephemeralKeyGenerator;
+		return this;
+	}
+
+	/**
+	 * 初始化
+	 *
+	 * @param forEncryption 是否为加密，加密使用公钥，解密使用私钥
+	 * @param param         公钥或私钥参数，加密时可以为{@link ParametersWithRandom}
+	 */
+	public void init(boolean forEncryption, CipherParameters param) {
+		this.forEncryption = forEncryption;
+		if (forEncryption) {
+			if (param instanceof ParametersWithRandom) {
+				this.ecKey = (ECKeyParameters) ((ParametersWithRandom) param).getParameters();
+				this.random = ((ParametersWithRandom) param).getRandom();
+			} else {
+				this.ecKey = (ECKeyParameters) param;
+				this.random = CryptoServicesRegistrar.getSecureRandom();
+			}
+			this.ecParams = this.ecKey.getParameters();
+
+			final ECPoint s = ((ECPublicKeyParameters) this.ecKey).getQ().multiply(this.ecParams.getH());
+			if (s.isInfinity()) {
+				throw new IllegalArgumentException("invalid key: [h]Q at infinity");
+			}
+		} else {
+			this.ecKey = (ECKeyParameters) param;
+			this.ecParams = this.ecKey.getParameters();
+		}
+		this.curveLength = (this.ecParams.getCurve().getFieldSize() + 7) / 8;
+	}
+
+	/**
+	 * 加密或解密
+	 *
+	 * @param in    数据
+	 * @param inOff 数据开始位置
+	 * @param inLen 数据长度
+	 * @return 密文或明文
+	 * @throws InvalidCipherTextException 密文无效
+	 */
+	public byte[] processBlock(byte[] in, int inOff, int inLen) throws InvalidCipherTextException {
+		return this.forEncryption ? encrypt(in, inOff, inLen) : decrypt(in, inOff, inLen);
+	}
+
+	/**
+	 * 获取输出长度
+	 *
+	 * @param inputLen 输入长度
+	 * @return 输出长度
+	 */
+	public int getOutputSize(int inputLen) {
+		return getC1Length(this.pointCompression) + inputLen + this.digest.getDigestSize();
+	}
+
+	// ------------------------------------------------------------------------------------------------------------------------- Private method start
+
+	private byte[] encrypt(byte[] in, int inOff, int inLen) {
+		final int c1Len = getC1Length(this.pointCompression);
+		final int digestSize = this.digest.getDigestSize();
+		final byte[] out = new byte[c1Len + inLen + digestSize];
+		final int c2Off = (SM2Engine.Mode.C1C3C2 == this.mode) ? c1Len + digestSize : c1Len;
+		final int c3Off = (SM2Engine.Mode.C1C3C2 == this.mode) ? c1Len : c1Len + inLen;
+		System.arraycopy(in, inOff, out, c2Off, inLen);
+
+		do {
+			final SM2EphemeralKeyGenerator generator = this.ephemeralKeyGenerator;
+			final SM2EphemeralKey key = (null == generator) ? null : generator.generate((ECPublicKeyParameters) this.ecKey);
+			final byte[] xy;
+			if (null != key) {
+				if (false == key.markUsed()) {
+					throw new IllegalStateException("SM2 ephemeral key has already been used !");
+				}
+				System.arraycopy(key.getC1().getEncoded(this.pointCompression), 0, out, 0, c1Len);
+				xy = key.getXY();
+			} else {
+				final BigInteger k = nextK();
+				final byte[] c1 = SM2FixedPointMultiplier.INSTANCE.multiply(this.ecParams.getG(), k).normalize().getEncoded(this.pointCompression);
+				System.arraycopy(c1, 0, out, 0, c1Len);
+				xy = encodeXY(((ECPublicKeyParameters) this.ecKey).getQ().multiply(k).normalize());
+			}
+
+			try {
+				// 并行时KDF在后台计算，当前线程同时计算C3
+				final ForkJoinTask<?> kdfTask = kdf(xy, out, c2Off, inLen);
+				try {
+					calculateC3(xy, in, inOff, inLen, out, c3Off);
+				} finally {
+					if (null != kdfTask) {
+						kdfTask.join();
+					}
+				}
+			} finally {
+				// 临时密钥只使用一次，用后清零
+				if (null != key) {
+					key.destroy();
+				} else {
+					Arrays.fill(xy, (byte) 0);
+				}
+			}
+		} while (notEncrypted(out, c2Off, in, inOff, inLen));
+
+		return out;
+	}
+
+	private byte[] decrypt(byte[] in, int inOff, int inLen) throws InvalidCipherTextException {
+		if (inLen < 1) {
+			throw new InvalidCipherTextException("invalid cipher text");
+		}
+		// 0x02和0x03开头为压缩格式的C1
+		final int c1Len = getC1Length(0x02 == in[inOff] || 0x03 == in[inOff]);
+		final int digestSize = this.digest.getDigestSize();
+		final int c2Len = inLen - c1Len - digestSize;
+		if (c2Len < 0) {
+			throw new InvalidCipherTextException("invalid cipher text");
+		}
+
+		final byte[] c1 = new byte[c1Len];
+		System.arraycopy(in, inOff, c1, 0, c1Len);
+		ECPoint c1P = this.ecParams.getCurve().decodePoint(c1);
+		final ECPoint s = c1P.multiply(this.ecParams.getH());
+		if (s.isInfinity()) {
+			throw new InvalidCipherTextException("[h]C1 at infinity");
+		}
+		final byte[] xy = encodeXY(c1P.multiply(((ECPrivateKeyParameters) this.ecKey).getD()).normalize());
+
+		final int c2Off = inOff + ((SM2Engine.Mode.C1C3C2 == this.mode) ? c1Len + digestSize : c1Len);
+		final int c3Off = inOff + ((SM2Engine.Mode.C1C3C2 == this.mode) ? c1Len : c1Len + c2Len);
+		final byte[] c2 = new byte[c2Len];
+		System.arraycopy(in, c2Off, c2, 0, c2Len);
+		final ForkJoinTask<?> kdfTask = kdf(xy, c2, 0, c2Len);
+		if (null != kdfTask) {
+			kdfTask.join();
+		}
+
+		final byte[] c3 = new byte[digestSize];
+		calculateC3(xy, c2, 0, c2Len, c3, 0);
+		Arrays.fill(xy, (byte) 0);
+		int check = 0;
+		for (int i = 0; i < digestSize; i++) {
+			check |= c3[i] ^ in[c3Off + i];
+		}
+		Arrays.fill(c3, (byte) 0);
+		if (check != 0) {
+			Arrays.fill(c2, (byte) 0);
+			throw new InvalidCipherTextException("invalid cipher text");
+		}
+		return c2;
+	}
+
+	/**
+	 * 获取C1长度
+	 *
+	 * @param compressed 是否为压缩格式
+	 * @return C1长度
+	 */
+	private int getC1Length(boolean compressed) {
+		return compressed ? 1 + this.curveLength : 1 + 2 * this.curveLength;
+	}
+
+	/**
+	 * 将点(x2, y2)编码为x2 || y2
+	 */
+	private byte[] encodeXY(ECPoint p) {
+		final byte[] xy = new byte[2 * this.curveLength];
+		BigIntegers.asUnsignedByteArray(p.getAffineXCoord().toBigInteger(), xy, 0, this.curveLength);
+		BigIntegers.asUnsignedByteArray(p.getAffineYCoord().toBigInteger(), xy, this.curveLength, this.curveLength);
+		return xy;
+	}
+
+	/**
+	 * 计算C3 = Hash(x2 || M || y2)
+	 */
+	private void calculateC3(byte[] xy, byte[] in, int inOff, int inLen, byte[] out, int outOff) {
+		this.digest.reset();
+		this.digest.update(xy, 0, this.curveLength);
+		this.digest.update(in, inOff, inLen);
+		this.digest.update(xy, this.curveLength, this.curveLength);
+		this.digest.doFinal(out, outOff);
+	}
+
+	/**
+	 * KDF，密钥流与data中指定区域原地异或<br>
+	 * 数据长度达到阈值时提交到{@link ForkJoinPool}并行计算，返回对应任务，调用方需等待其完成；否则在当前线程计算，返回{@code null}
+	 *
+	 * @param xy   x2 || y2
+	 * @param data 数据
+	 * @param off  开始位置
+	 * @param len  长度
+	 * @return 并行任务，串行计算时为{@code null}
+	 */
+	private ForkJoinTask<?> kdf(byte[] xy, byte[] data, int off, int len) {
+		final int digestSize = this.digest.getDigestSize();
+		final int blocks = (len + digestSize - 1) / digestSize;
+
+		this.digest.reset();
+		if (this.digest instanceof Memoable && this.parallelThreshold > 0 && len >= this.parallelThreshold) {
+			final int leafBlocks = Math.max(MIN_TASK_BLOCKS, blocks / (this.pool.getParallelism() * 2) + 1);
+			final Memoable base = ((Memoable) this.digest).copy();
+			return this.pool.submit(new KdfTask(base, xy, data, off, len, 0, blocks, leafBlocks));
+		}
+
+		kdfBlocks(this.digest, xy, data, off, len, 0, blocks);
+		return null;
+	}
+
+	/**
+	 * 计算指定范围的KDF块并与数据异或，第i块（从0开始）的计数器为i + 1
+	 *
+	 * @param digest 已重置的摘要
+	 * @param xy     x2 || y2
+	 * @param data   数据
+	 * @param off    数据开始位置
+	 * @param len    数据长度
+	 * @param from   开始块
+	 * @param to     结束块（不包括）
+	 */
+	private static void kdfBlocks(Digest digest, byte[] xy, byte[] data, int off, int len, int from, int to) {
+		final int digestSize = digest.getDigestSize();
+		final byte[] buf = new byte[Math.max(4, digestSize)];
+		Memoable memo = null;
+		Memoable copy = null;
+		if (digest instanceof Memoable) {
+			digest.update(xy, 0, xy.length);
+			memo = (Memoable) digest;
+			copy = memo.copy();
+		}
+
+		for (int i = from; i < to; i++) {
+			if (null != memo) {
+				memo.reset(copy);
+			} else {
+				digest.update(xy, 0, xy.length);
+			}
+			Pack.intToBigEndian(i + 1, buf, 0);
+			digest.update(buf, 0, 4);
+			digest.doFinal(buf, 0);
+
+			final int blockOff = i * digestSize;
+			final int xorLen = Math.min(digestSize, len - blockOff);
+			for (int j = 0; j < xorLen; j++) {
+				data[off + blockOff + j] ^= buf[j];
+			}
+		}
+		Arrays.fill(buf, (byte) 0);
+	}
+
+	/**
+	 * 检查密钥流是否全为0，即密文与明文相同
+	 */
+	private static boolean notEncrypted(byte[] encData, int encOff, byte[] in, int inOff, int len) {
+		for (int i = 0; i < len; i++) {
+			if (encData[encOff + i] != in[inOff + i]) {
+				return false;
+			}
+		}
+		// 空数据无需重试
+		return len > 0;
+	}
+
+	private BigInteger nextK() {
+		final int qBitLength = this.ecParams.getN().bitLength();
+
+		BigInteger k;
+		do {
+			k = BigIntegers.createRandomBigInteger(qBitLength, this.random);
+		} while (k.equals(ZERO) || k.compareTo(this.ecParams.getN()) >= 0);
+
+		return k;
+	}
+
+	/**
+	 * 并行KDF任务
+	 */
+	private static class KdfTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		private final Memoable base;
+		private final byte[] xy;
+		private final byte[] data;
+		private final int off;
+		private final int len;
+		private final int from;
+		private final int to;
+		private final int leafBlocks;
+
+		KdfTask(Memoable base, byte[] xy, byte[] data, int off, int len, int from, int to, int leafBlocks) {
+			this.base = base;
+			this.xy = xy;
+			this.data = data;
+			this.off = off;
+			this.len = len;
+			this.from = from;
+			this.to = to;
+			this.leafBlocks = leafBlocks;
+		}
+
+		@Override
+		protected void compute() {
+			if (this.to - this.from > this.leafBlocks) {
+				final int mid = (this.from + this.to) >>> 1;
+				invokeAll(new KdfTask(base, xy, data, off, len, from, mid, leafBlocks),
+						new KdfTask(base, xy, data, off, len, mid, to, leafBlocks));
+				return;
+			}
+			// 各子任务使用独立的摘要副本，基础状态只读
+			kdfBlocks((Digest) this.base.copy(), this.xy, this.data, this.off, this.len, this.from, this.to);
+		}
+	}
+	// ------------------------------------------------------------------------------------------------------------------------- Private method end
+}
@@ -0,0 +1,21 @@
+package cn.csfz.crypto.asymmetric.sm2;
+
+/**
+ * SM2密文格式，解密时自动识别
+ *
+ * @since 2.0.0
+ */
+public enum SM2CipherFormat {
+	/**
+	 * C1、C2、C3直接拼接，按SM2模式排列，C1为非压缩点（sm2p256v1为65字节），默认格式
+	 */
+	RAW,
+	/**
+	 * C1、C2、C3直接拼接，按SM2模式排列，C1为压缩点（sm2p256v1为33字节）
+	 */
+	COMPRESSED,
+	/**
+	 * GM/T 0009 ASN.1格式：SEQUENCE { XCoordinate INTEGER, YCoordinate INTEGER, HASH OCTET STRING, CipherText OCTET STRING }
+	 */
+	ASN1
+}
@@ -0,0 +1,61 @@
+package cn.csfz.crypto.asymmetric.sm2;
+
+import org.bouncycastle.crypto.digests.SM3Digest;
+import org.bouncycastle.crypto.params.ECDomainParameters;
+import org.bouncycastle.crypto.params.ECPrivateKeyParameters;
+import org.bouncycastle.crypto.signers.HMacDSAKCalculator;
+import org.bouncycastle.math.ec.ECPoint;
+
+import java.math.BigInteger;
+
+/**
+ * SM2确定性签名随机数生成器（RFC 6979，HMAC-SM3）<br>
+ * 随机数k由私钥d和消息摘要e通过HMAC-DRBG推导，同一私钥对同一消息的签名结果相同，不同消息的k互不相关且不可预测。
+ * 生成过程只有CPU计算，不读取系统熵源，也不竞争{@link java.security.SecureRandom}的内部锁，签名结果可在测试中复现。
+ *
+ * <pre>
+ * sm2.setNonceGenerator(SM2DeterministicNonceGenerator.INSTANCE);
+ * </pre>
+ *
+ * <p>
+ * 此对象线程安全，每个线程独立持有HMAC计算对象。
+ *
+ * @since 2.0.0
+ */
+public class SM2DeterministicNonceGenerator implements SM2NonceGenerator {
+
+	/**
+	 * 单例
+	 */
+	public static final SM2DeterministicNonceGenerator INSTANCE = new SM2DeterministicNonceGenerator();
+
+	private final ThreadLocal<HMacDSAKCalculator> localCalculator = new ThreadLocal<HMacDSAKCalculator>() {
+		@Override
+		protected HMacDSAKCalculator initialValue() {
+			return new HMacDSAKCalculator(new SM3Digest());
+		}
+	};
+
+	@Override
+	public SM2Nonce generate(ECPrivateKeyParameters privateKey, byte[] e) {
+		final ECDomainParameters params = privateKey.getParameters();
+		final BigInteger n = params.getN();
+		final BigInteger d = privateKey.getD();
+		final BigInteger eInt = new BigInteger(1, e);
+
+		final HMacDSAKCalculator calculator = this.localCalculator.get();
+		calculator.init(n, d, e);
+		while (true) {
+			final BigInteger k = calculator.nextK();
+			final ECPoint p = SM2FixedPointMultiplier.INSTANCE.multiply(params.getG(), k).normalize();
+			final BigInteger x1 = p.getAffineXCoord().toBigInteger();
+
+			// 相同输入总是得到相同的k，签名引擎重试时会陷入循环，因此在此跳过r = 0、r + k = n和s = 0的k
+			final BigInteger r = eInt.add(x1).mod(n);
+			if (r.signum() == 0 || r.add(k).equals(n) || k.equals(r.multiply(d).mod(n))) {
+				continue;
+			}
+			return new SM2Nonce(k, x1);
+		}
+	}
+}
@@ -0,0 +1,238 @@
+package cn.csfz.crypto.asymmetric.sm2;
+
+import cn.csfz.core.io.FastByteArrayOutputStream;
+import cn.csfz.core.io.IORuntimeException;
+import cn.csfz.core.io.IoUtil;
+import cn.csfz.core.util.RandomUtil;
+import cn.csfz.crypto.CryptoException;
+import cn.csfz.crypto.SmUtil;
+import cn.csfz.crypto.asymmetric.KeyType;
+import cn.csfz.crypto.asymmetric.SM2;
+import cn.csfz.crypto.symmetric.SM4AEAD;
+import org.bouncycastle.crypto.engines.SM2Engine;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.Arrays;
+
+/**
+ * SM2数字信封<br>
+ * 随机生成SM4密钥，使用SM2公钥加密（封装）此密钥，数据本身使用SM4-GCM流式加密，大数据量时加密速度接近SM4，
+ * 且无需将全部数据读入内存。解密时使用SM2私钥解出SM4密钥后解密数据并校验认证标签。
+ *
+ * <p>
+ * 信封格式（多字节整数为大端序）：
+ * <pre>
+ * | 魔数 "SE"（2） | 版本（1） | 加密模式（1） | SM2密文排列（1） | 封装密钥长度（2） | 封装密钥（SM2密文） | nonce（12） | SM4密文 | 认证标签（16） |
+ * </pre>
+ * 其中加密模式3表示SM4/GCM；SM2密文排列0表示C1C2C3，1表示C1C3C2，解密时按此排列解析封装密钥，与解密方{@link SM2}对象的模式无关。
+ * 魔数至封装密钥的全部内容作为GCM的附加数据参与认证，信封头或密文被篡改时解密失败。
+ *
+ * <p>
+ * 流式解密时明文在读取过程中写出，认证标签在数据末尾才能校验，
+ * 因此解密抛出{@link CryptoException}时调用方必须丢弃已写出的全部数据。
+ *
+ * <p>
+ * 此对象线程安全的前提是传入的{@link SM2}对象线程安全（默认加锁或并发模式均可）。
+ *
+ * @since 2.0.0
+ */
+public class SM2Envelope {
+
+	private static final byte[] MAGIC = {'S', 'E'};
+	private static final byte VERSION = 2;
+	private static final byte MODE_GCM = 3;
+	private static final byte LAYOUT_C1C2C3 = 0;
+	private static final byte LAYOUT_C1C3C2 = 1;
+	private static final int HEADER_SIZE = 7;
+	/**
+	 * SM4密钥长度
+	 */
+	private static final int SM4_KEY_SIZE = 16;
+
+	private final SM2 sm2;
+
+	/**
+	 * 构造
+	 *
+	 * @param sm2 {@link SM2}，加密时需有公钥，解密时需有私钥
+	 */
+	public SM2Envelope(SM2 sm2) {
+		this.sm2 = sm2;
+	}
+
+	/**
+	 * 加密
+	 *
+	 * @param data 数据
+	 * @return 数字信封
+	 */
+	public byte[] encrypt(byte[] data) {
+		final FastByteArrayOutputStream out = new FastByteArrayOutputStream(data.length + 200);
+		encrypt(new ByteArrayInputStream(data), out);
+		return out.toByteArray();
+	}
+
+	/**
+	 * 解密
+	 *
+	 * @param envelope 数字信封
+	 * @return 数据
+	 * @throws CryptoException 信封格式错误或认证失败
+	 */
+	public byte[] decrypt(byte[] envelope) throws CryptoException {
+		final FastByteArrayOutputStream out = new FastByteArrayOutputStream(envelope.length);
+		decrypt(new ByteArrayInputStream(envelope), out);
+		return out.toByteArray();
+	}
+
+	/**
+	 * 加密流，信封写出到输出流，流不会被关闭
+	 *
+	 * @param in  数据流
+	 * @param out 数字信封输出流
+	 * @throws IORuntimeException IO异常
+	 */
+	public void encrypt(InputStream in, OutputStream out) throws IORuntimeException {
+		final byte[] key = RandomUtil.randomBytes(SM4_KEY_SIZE);
+		try {
+			final SM4AEAD aead = new SM4AEAD(key);
+			final byte[] nonce = aead.generateNonce();
+			final byte[] wrappedKey = this.sm2.encrypt(key, KeyType.PublicKey);
+			final byte[] header = new byte[HEADER_SIZE];
+			System.arraycopy(MAGIC, 0, header, 0, MAGIC.length);
+			header[2] = VERSION;
+			header[3] = MODE_GCM;
+			header[4] = (SM2Engine.Mode.C1C2C3 == this.sm2.getMode()) ? LAYOUT_C1C2C3 : LAYOUT_C1C3C2;
+			header[5] = (byte) (wrappedKey.length >>> 8);
+			header[6] = (byte) wrappedKey.length;
+			out.write(header);
+			out.write(wrappedKey);
+			out.write(nonce);
+
+			final SM4AEAD.Session session = aead.encryptSession(nonce).updateAAD(header).updateAAD(wrappedKey);
+			copy(in, out, session);
+		} catch (IOException e) {
+			throw new IORuntimeException(e);
+		} finally {
+			Arrays.fill(key, (byte) 0);
+		}
+	}
+
+	/**
+	 * 解密流，数据写出到输出流，流不会被关闭<br>
+	 * 认证失败时抛出{@link CryptoException}，此时已写出到输出流的数据不可信，须丢弃。
+	 *
+	 * @param in  数字信封流
+	 * @param out 数据输出流
+	 * @throws IORuntimeException IO异常
+	 * @throws CryptoException    信封格式错误或认证失败
+	 */
+	public void decrypt(InputStream in, OutputStream out) throws IORuntimeException, CryptoException {
+		final DataInputStream dataIn = new DataInputStream(in);
+		byte[] key = null;
+		try {
+			final byte[] header = new byte[HEADER_SIZE];
+			dataIn.readFully(header);
+			if (MAGIC[0] != header[0] || MAGIC[1] != header[1]) {
+				throw new CryptoException("Invalid SM2 envelope !");
+			}
+			if (VERSION != header[2]) {
+				throw new CryptoException("Unsupported SM2 envelope version: {}", header[2]);
+			}
+			if (MODE_GCM != header[3]) {
+				throw new CryptoException("Unsupported SM2 envelope mode: {}", header[3]);
+			}
+			final byte layout = header[4];
+			if (LAYOUT_C1C2C3 != layout && LAYOUT_C1C3C2 != layout) {
+				throw new CryptoException("Unsupported SM2 cipher layout: {}", layout);
+			}
+			final byte[] wrappedKey = new byte[((header[5] & 0xFF) << 8) | (header[6] & 0xFF)];
+			dataIn.readFully(wrappedKey);
+			final byte[] nonce = new byte[SM4AEAD.DEFAULT_NONCE_LENGTH];
+			dataIn.readFully(nonce);
+
+			key = this.sm2.decrypt(toLocalLayout(wrappedKey, layout), KeyType.PrivateKey);
+			final SM4AEAD.Session session = new SM4AEAD(key).decryptSession(nonce).updateAAD(header).updateAAD(wrappedKey);
+			copy(dataIn, out, session);
+		} catch (IOException e) {
+			throw new IORuntimeException(e);
+		} finally {
+			if (null != key) {
+				Arrays.fill(key, (byte) 0);
+			}
+		}
+	}
+
+	/**
+	 * 加密通道，信封写出到输出通道，通道不会被关闭
+	 *
+	 * @param in  数据通道
+	 * @param out 数字信封输出通道
+	 * @throws IORuntimeException IO异常
+	 */
+	public void encrypt(ReadableByteChannel in, WritableByteChannel out) throws IORuntimeException {
+		encrypt(Channels.newInputStream(in), Channels.newOutputStream(out));
+	}
+
+	/**
+	 * 解密通道，数据写出到输出通道，通道不会被关闭<br>
+	 * 认证失败时抛出{@link CryptoException}，此时已写出到输出通道的数据不可信，须丢弃。
+	 *
+	 * @param in  数字信封通道
+	 * @param out 数据输出通道
+	 * @throws IORuntimeException IO异常
+	 * @throws CryptoException    信封格式错误或认证失败
+	 */
+	public void decrypt(ReadableByteChannel in, WritableByteChannel out) throws IORuntimeException, CryptoException {
+		decrypt(Channels.newInputStream(in), Channels.newOutputStream(out));
+	}
+
+	// ------------------------------------------------------------------------------------------------------------------------- Private method start
+
+	/**
+	 * 将信封中的封装密钥转换为解密方{@link SM2}对象的排列，ASN.1格式与排列无关，不转换
+	 *
+	 * @param wrappedKey 封装密钥
+	 * @param layout     信封中记录的SM2密文排列
+	 * @return 封装密钥
+	 */
+	private byte[] toLocalLayout(byte[] wrappedKey, byte layout) {
+		if (wrappedKey.length > 0 && 0x30 == wrappedKey[0]) {
+			return wrappedKey;
+		}
+		final SM2Engine.Mode localMode = this.sm2.getMode();
+		if (LAYOUT_C1C2C3 == layout && SM2Engine.Mode.C1C3C2 == localMode) {
+			return SmUtil.changeC1C2C3ToC1C3C2(wrappedKey, SmUtil.SM2_DOMAIN_PARAMS);
+		}
+		if (LAYOUT_C1C3C2 == layout && SM2Engine.Mode.C1C2C3 == localMode) {
+			return SmUtil.changeC1C3C2ToC1C2C3(wrappedKey, SmUtil.SM2_DOMAIN_PARAMS);
+		}
+		return wrappedKey;
+	}
+
+	/**
+	 * 分块读取数据，经{@link SM4AEAD.Session}处理后写出
+	 *
+	 * @param in      输入流
+	 * @param out     输出流
+	 * @param session 已传入附加数据的{@link SM4AEAD.Session}
+	 * @throws IOException IO异常
+	 */
+	private static void copy(InputStream in, OutputStream out, SM4AEAD.Session session) throws IOException {
+		final byte[] buffer = new byte[IoUtil.DEFAULT_LARGE_BUFFER_SIZE];
+		int len;
+		while ((len = in.read(buffer)) > -1) {
+			out.write(session.update(buffer, 0, len));
+		}
+		out.write(session.doFinal());
+		out.flush();
+	}
+	// ------------------------------------------------------------------------------------------------------------------------- Private method end
+}
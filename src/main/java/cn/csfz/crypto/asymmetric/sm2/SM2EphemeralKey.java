@@ -0,0 +1,105 @@
+package cn.csfz.crypto.asymmetric.sm2;
+
+import org.bouncycastle.crypto.params.ECDomainParameters;
+import org.bouncycastle.crypto.params.ECPublicKeyParameters;
+import org.bouncycastle.math.ec.ECPoint;
+import org.bouncycastle.util.BigIntegers;
+
+import java.math.BigInteger;
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * SM2加密使用的一次性临时密钥，即C1 = k·G和共享点(x2, y2) = k·P_B<br>
+ * 二者只与接收方公钥有关，与明文无关，可以预先计算。随机数k在计算完成后即丢弃，不保存在此对象中。
+ *
+ * <p>
+ * 每个临时密钥只能用于一次加密，重复使用会使两段密文使用相同的密钥流。
+ * {@link SM2CipherEngine}使用前通过{@link #markUsed()}标记，标记失败（已被使用）时拒绝加密，加密完成后调用{@link #destroy()}将(x2, y2)清零。
+ *
+ * @since 2.0.0
+ */
+public class SM2EphemeralKey {
+
+	private final ECPoint c1;
+	private final byte[] xy;
+	private final AtomicBoolean used = new AtomicBoolean();
+
+	/**
+	 * 构造
+	 *
+	 * @param c1 点C1 = k·G（已标准化）
+	 * @param xy 共享点k·P_B的坐标编码x2 || y2，此对象持有此数组，销毁时清零
+	 */
+	public SM2EphemeralKey(ECPoint c1, byte[] xy) {
+		this.c1 = c1;
+		this.xy = xy;
+	}
+
+	/**
+	 * 即时计算临时密钥，k在[1, n-1]中均匀选取
+	 *
+	 * @param publicKey 接收方公钥
+	 * @param random    安全随机数生成器
+	 * @return {@link SM2EphemeralKey}
+	 */
+	public static SM2EphemeralKey create(ECPublicKeyParameters publicKey, SecureRandom random) {
+		final ECDomainParameters params = publicKey.getParameters();
+		final BigInteger k = BigIntegers.createRandomInRange(BigInteger.ONE, params.getN().subtract(BigInteger.ONE), random);
+		final ECPoint c1 = SM2FixedPointMultiplier.INSTANCE.multiply(params.getG(), k).normalize();
+		final ECPoint kPB = publicKey.getQ().multiply(k).normalize();
+		final byte[] x = kPB.getAffineXCoord().getEncoded();
+		final byte[] y = kPB.getAffineYCoord().getEncoded();
+		final byte[] xy = new byte[x.length + y.length];
+		System.arraycopy(x, 0, xy, 0, x.length);
+		System.arraycopy(y, 0, xy, x.length, y.length);
+		Arrays.fill(x, (byte) 0);
+		Arrays.fill(y, (byte) 0);
+		return new SM2EphemeralKey(c1, xy);
+	}
+
+	/**
+	 * 获取点C1 = k·G
+	 *
+	 * @return C1
+	 */
+	public ECPoint getC1() {
+		return this.c1;
+	}
+
+	/**
+	 * 标记为已使用，只有第一次调用返回{@code true}
+	 *
+	 * @return 是否为第一次使用
+	 */
+	public boolean markUsed() {
+		return this.used.compareAndSet(false, true);
+	}
+
+	/**
+	 * 是否已使用
+	 *
+	 * @return 是否已使用
+	 */
+	public boolean isUsed() {
+		return this.used.get();
+	}
+
+	/**
+	 * 标记为已使用并将(x2, y2)清零
+	 */
+	public void destroy() {
+		this.used.set(true);
+		Arrays.fill(this.xy, (byte) 0);
+	}
+
+	/**
+	 * 获取共享点坐标编码x2 || y2，不复制
+	 *
+	 * @return x2 || y2
+	 */
+	byte[] getXY() {
+		return this.xy;
+	}
+}
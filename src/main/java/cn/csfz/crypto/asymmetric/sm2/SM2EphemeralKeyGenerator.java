@@ -0,0 +1,20 @@
+package cn.csfz.crypto.asymmetric.sm2;
+
+import org.bouncycastle.crypto.params.ECPublicKeyParameters;
+
+/**
+ * SM2加密临时密钥生成器，用于替换{@link SM2CipherEngine}默认的即时计算
+ *
+ * @see SM2CipherEngine#setEphemeralKeyGenerator(SM2EphemeralKeyGenerator)
+ * @since 2.0.0
+ */
+public interface SM2EphemeralKeyGenerator {
+
+	/**
+	 * 生成一个加密临时密钥，每次调用返回的临时密钥只能使用一次
+	 *
+	 * @param publicKey 接收方公钥
+	 * @return {@link SM2EphemeralKey}
+	 */
+	SM2EphemeralKey generate(ECPublicKeyParameters publicKey);
+}
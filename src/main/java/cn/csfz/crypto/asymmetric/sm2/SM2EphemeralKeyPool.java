@@ -0,0 +1,211 @@
+package cn.csfz.crypto.asymmetric.sm2;
+
+import org.bouncycastle.crypto.CryptoServicesRegistrar;
+import org.bouncycastle.crypto.params.ECPublicKeyParameters;
+import org.bouncycastle.math.ec.WNafUtil;
+
+import java.io.Closeable;
+import java.security.SecureRandom;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * SM2加密临时密钥池（单个接收方）<br>
+ * 加密中开销最大的两次点乘（C1 = k·G和k·P_B）与明文无关，此池由后台线程为固定的接收方公钥预先计算临时密钥并放入有界队列，
+ * 加密时直接取出，只需计算KDF、异或和C3。池为空时在调用线程中即时计算，不会阻塞加密。
+ *
+ * <pre>
+ * SM2EphemeralKeyPool pool = new SM2EphemeralKeyPool(recipientPublicKeyParams, 1024, 2);
+ * sm2.setEphemeralKeyGenerator(pool);
+ * </pre>
+ *
+ * <p>
+ * 每个接收方使用独立的池，容量和后台线程数按接收方分别设置；为其它公钥加密时即时计算。<br>
+ * 池中每个临时密钥只会被取出一次，使用后由{@link SM2CipherEngine}清零；{@link #close()}时池中剩余的临时密钥也会被清零。<br>
+ * 此对象线程安全，不再使用时应调用{@link #close()}停止后台线程。
+ *
+ * @since 2.0.0
+ */
+public class SM2EphemeralKeyPool implements SM2EphemeralKeyGenerator, Closeable {
+
+	private final ECPublicKeyParameters publicKey;
+	private final SecureRandom random;
+	private final BlockingQueue<SM2EphemeralKey> queue;
+	private final Thread[] workers;
+
+	private final AtomicLong generatedCount = new AtomicLong();
+	private final AtomicLong hitCount = new AtomicLong();
+	private final AtomicLong missCount = new AtomicLong();
+
+	/**
+	 * 构造，使用一个后台线程填充
+	 *
+	 * @param publicKey 接收方公钥
+	 * @param capacity  池容量
+	 */
+	public SM2EphemeralKeyPool(ECPublicKeyParameters publicKey, int capacity) {
+		this(publicKey, capacity, 1);
+	}
+
+	/**
+	 * 构造，使用默认的安全随机数生成器
+	 *
+	 * @param publicKey   接收方公钥
+	 * @param capacity    池容量
+	 * @param workerCount 填充池的后台线程数
+	 */
+	public SM2EphemeralKeyPool(ECPublicKeyParameters publicKey, int capacity, int workerCount) {
+		this(publicKey, capacity, workerCount, null);
+	}
+
+	/**
+	 * 构造
+	 *
+	 * @param publicKey   接收方公钥
+	 * @param capacity    池容量
+	 * @param workerCount 填充池的后台线程数
+	 * @param random      安全随机数生成器，{@code null}表示使用默认
+	 */
+	public SM2EphemeralKeyPool(ECPublicKeyParameters publicKey, int capacity, int workerCount, SecureRandom random) {
+		if (capacity <= 0) {
+			throw new IllegalArgumentException("Capacity must be greater than 0");
+		}
+		if (workerCount <= 0) {
+			throw new IllegalArgumentException("Worker count must be greater than 0");
+		}
+		if (publicKey.getQ().multiply(publicKey.getParameters().getH()).isInfinity()) {
+			throw new IllegalArgumentException("invalid key: [h]Q at infinity");
+		}
+		this.publicKey = publicKey;
+		this.random = (null == random) ? CryptoServicesRegistrar.getSecureRandom() : random;
+		this.queue = new ArrayBlockingQueue<SM2EphemeralKey>(capacity);
+		// 公钥的wNAF预计算表保存在点对象上，后台线程共享
+		WNafUtil.precompute(publicKey.getQ(), SM2PublicKeyCache.DEFAULT_WIDTH, true);
+
+		this.workers = new Thread[workerCount];
+		for (int i = 0; i < workerCount; i++) {
+			final Thread worker = new Thread(new Runnable() {
+				@Override
+				public void run() {
+					fill();
+				}
+			}, "sm2-ephemeral-pool-" + i);
+			worker.setDaemon(true);
+			worker.start();
+			this.workers[i] = worker;
+		}
+	}
+
+	@Override
+	public SM2EphemeralKey generate(ECPublicKeyParameters publicKey) {
+		if (false == this.publicKey.getQ().equals(publicKey.getQ())
+				|| false == this.publicKey.getParameters().equals(publicKey.getParameters())) {
+			// 其它接收方，直接即时计算
+			return SM2EphemeralKey.create(publicKey, this.random);
+		}
+		final SM2EphemeralKey key = this.queue.poll();
+		if (null != key) {
+			this.hitCount.incrementAndGet();
+			return key;
+		}
+		this.missCount.incrementAndGet();
+		return SM2EphemeralKey.create(this.publicKey, this.random);
+	}
+
+	/**
+	 * 获取接收方公钥
+	 *
+	 * @return 接收方公钥
+	 */
+	public ECPublicKeyParameters getPublicKey() {
+		return this.publicKey;
+	}
+
+	/**
+	 * 获取池中当前可用的临时密钥个数
+	 *
+	 * @return 池深度
+	 */
+	public int getDepth() {
+		return this.queue.size();
+	}
+
+	/**
+	 * 获取池容量
+	 *
+	 * @return 池容量
+	 */
+	public int getCapacity() {
+		return this.queue.size() + this.queue.remainingCapacity();
+	}
+
+	/**
+	 * 获取后台线程已生成的临时密钥总数
+	 *
+	 * @return 生成总数
+	 */
+	public long getGeneratedCount() {
+		return this.generatedCount.get();
+	}
+
+	/**
+	 * 获取从池中取得临时密钥的次数
+	 *
+	 * @return 命中次数
+	 */
+	public long getHitCount() {
+		return this.hitCount.get();
+	}
+
+	/**
+	 * 获取池为空、即时计算临时密钥的次数
+	 *
+	 * @return 未命中次数
+	 */
+	public long getMissCount() {
+		return this.missCount.get();
+	}
+
+	/**
+	 * 停止后台线程，并清零池中剩余的临时密钥，之后的临时密钥均即时计算
+	 */
+	@Override
+	public void close() {
+		for (Thread worker : this.workers) {
+			worker.interrupt();
+		}
+		destroyAll();
+	}
+
+	/**
+	 * 后台线程持续填充池，池满时阻塞等待
+	 */
+	private void fill() {
+		try {
+			while (false == Thread.currentThread().isInterrupted()) {
+				final SM2EphemeralKey key = SM2EphemeralKey.create(this.publicKey, this.random);
+				try {
+					this.queue.put(key);
+				} catch (InterruptedException e) {
+					key.destroy();
+					throw e;
+				}
+				this.generatedCount.incrementAndGet();
+			}
+		} catch (InterruptedException e) {
+			// 池已关闭
+		}
+		destroyAll();
+	}
+
+	/**
+	 * 取出并清零池中所有临时密钥
+	 */
+	private void destroyAll() {
+		SM2EphemeralKey key;
+		while (null != (key = this.queue.poll())) {
+			key.destroy();
+		}
+	}
+}
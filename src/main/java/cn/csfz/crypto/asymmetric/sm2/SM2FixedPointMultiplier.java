@@ -0,0 +1,164 @@
+package cn.csfz.crypto.asymmetric.sm2;
+
+import org.bouncycastle.math.ec.AbstractECMultiplier;
+import org.bouncycastle.math.ec.ECCurve;
+import org.bouncycastle.math.ec.ECLookupTable;
+import org.bouncycastle.math.ec.ECPoint;
+import org.bouncycastle.math.ec.FixedPointCombMultiplier;
+import org.bouncycastle.math.ec.PreCompCallback;
+import org.bouncycastle.math.ec.PreCompInfo;
+import org.bouncycastle.math.raw.Nat;
+
+import java.math.BigInteger;
+
+/**
+ * SM2基点（生成元G）固定点乘法器，基于按窗口预计算的倍点表<br>
+ * 将标量k按{@link #WIDTH}位分为若干窗口，为每个窗口预计算 (j+1)·2^(WIDTH·i)·G 共2^WIDTH个点，
+ * 计算k·G时每个窗口只需一次查表（缓存安全的常量时间查表）和一次点加，不再需要倍点运算。
+ *
+ * <p>
+ * 预计算表保存在点对象的预计算信息中，同一个基点在JVM中只构建一次，多线程共享。<br>
+ * 与{@link FixedPointCombMultiplier}一样，此乘法器只适用于固定的基点，不可用于变化的点（如对方公钥）。
+ *
+ * @since 2.0.0
+ */
+public class SM2FixedPointMultiplier extends AbstractECMultiplier {
+
+	/**
+	 * 单例
+	 */
+	public static final SM2FixedPointMultiplier INSTANCE = new SM2FixedPointMultiplier();
+
+	/**
+	 * 窗口宽度，sm2p256v1下共52个窗口，每个窗口32个点
+	 */
+	public static final int WIDTH = 5;
+
+	/**
+	 * 预计算表在点对象中的名称
+	 */
+	private static final String PRECOMP_NAME = "cn.csfz.sm2.fixed";
+
+	/**
+	 * 预计算指定基点的倍点表，可在启动时调用以避免首次运算时的构建开销
+	 *
+	 * @param g 基点
+	 */
+	public static void precompute(ECPoint g) {
+		getTable(g);
+	}
+
+	@Override
+	protected ECPoint multiplyPositive(ECPoint p, BigInteger k) {
+		final FixedPointTable table = getTable(p);
+		if (k.bitLength() > table.bits) {
+			// 超出预计算范围（k不小于阶n时），交给通用实现
+			return new FixedPointCombMultiplier().multiply(p, k);
+		}
+
+		final ECLookupTable[] lookupTables = table.lookupTables;
+		final int[] words = Nat.fromBigInteger(table.bits, k);
+		final int mask = (1 << WIDTH) - 1;
+		ECPoint r = p.getCurve().getInfinity();
+		for (int i = 0; i < lookupTables.length; i++) {
+			r = r.add(lookupTables[i].lookup(window(words, i * WIDTH) & mask));
+		}
+		// 减去每个窗口额外加上的2^(WIDTH·i)·G
+		return r.add(table.offset);
+	}
+
+	/**
+	 * 取标量从指定位开始的窗口值（未截断高位）
+	 *
+	 * @param words 标量，小端序的int数组
+	 * @param bit   起始位
+	 * @return 窗口值
+	 */
+	private static int window(int[] words, int bit) {
+		final int index = bit >>> 5;
+		final int shift = bit & 31;
+		int value = words[index] >>> shift;
+		if (shift > 32 - WIDTH && index + 1 < words.length) {
+			value |= words[index + 1] << (32 - shift);
+		}
+		return value;
+	}
+
+	/**
+	 * 获取或构建基点的预计算表
+	 *
+	 * @param g 基点
+	 * @return 预计算表
+	 */
+	private static FixedPointTable getTable(final ECPoint g) {
+		final ECCurve curve = g.getCurve();
+		return (FixedPointTable) curve.precompute(g, PRECOMP_NAME, new PreCompCallback() {
+			@Override
+			public PreCompInfo precompute(PreCompInfo existing) {
+				if (existing instanceof FixedPointTable) {
+					return existing;
+				}
+				return buildTable(g);
+			}
+		});
+	}
+
+	/**
+	 * 构建预计算表
+	 *
+	 * @param g 基点
+	 * @return 预计算表
+	 */
+	private static FixedPointTable buildTable(ECPoint g) {
+		final ECCurve curve = g.getCurve();
+		final BigInteger order = curve.getOrder();
+		final int bits = (null == order) ? curve.getFieldSize() + 1 : order.bitLength();
+		final int windows = (bits + WIDTH - 1) / WIDTH;
+		final int size = 1 << WIDTH;
+
+		final ECPoint[] points = new ECPoint[windows * size];
+		ECPoint base = g.normalize();
+		ECPoint offset = curve.getInfinity();
+		for (int i = 0; i < windows; i++) {
+			final int off = i * size;
+			points[off] = base;
+			for (int j = 1; j < size; j++) {
+				points[off + j] = points[off + j - 1].add(base);
+			}
+			offset = offset.add(base);
+			// 下一窗口的基点为 2^WIDTH·base，即本窗口的最后一项
+			base = points[off + size - 1];
+		}
+		curve.normalizeAll(points);
+
+		final ECLookupTable[] lookupTables = new ECLookupTable[windows];
+		for (int i = 0; i < windows; i++) {
+			lookupTables[i] = curve.createCacheSafeLookupTable(points, i * size, size);
+		}
+		return new FixedPointTable(lookupTables, offset.negate().normalize(), windows * WIDTH);
+	}
+
+	/**
+	 * 基点的预计算表
+	 */
+	private static class FixedPointTable implements PreCompInfo {
+		/**
+		 * 每个窗口的查找表，第i个表的第j项为 (j+1)·2^(WIDTH·i)·G
+		 */
+		private final ECLookupTable[] lookupTables;
+		/**
+		 * 修正点，即 -Σ2^(WIDTH·i)·G
+		 */
+		private final ECPoint offset;
+		/**
+		 * 表覆盖的标量位数
+		 */
+		private final int bits;
+
+		FixedPointTable(ECLookupTable[] lookupTables, ECPoint offset, int bits) {
+			this.lookupTables = lookupTables;
+			this.offset = offset;
+			this.bits = bits;
+		}
+	}
+}
@@ -0,0 +1,199 @@
+package cn.csfz.crypto.asymmetric.sm2;
+
+import cn.csfz.crypto.CryptoException;
+import cn.csfz.crypto.ECKeyUtil;
+import org.bouncycastle.crypto.AsymmetricCipherKeyPair;
+import org.bouncycastle.crypto.agreement.SM2KeyExchange;
+import org.bouncycastle.crypto.digests.SM3Digest;
+import org.bouncycastle.crypto.params.ECDomainParameters;
+import org.bouncycastle.crypto.params.ECPrivateKeyParameters;
+import org.bouncycastle.crypto.params.ECPublicKeyParameters;
+import org.bouncycastle.crypto.params.ParametersWithID;
+import org.bouncycastle.crypto.params.SM2KeyExchangePrivateParameters;
+import org.bouncycastle.crypto.params.SM2KeyExchangePublicParameters;
+
+import java.util.Arrays;
+
+/**
+ * SM2密钥交换（GM/T 0003.3），一次握手对应一个对象，带可选的密钥确认（S1/S2）<br>
+ * 双方使用各自的静态密钥对和本次握手生成的临时密钥对，协商出相同的会话密钥（默认16字节，可直接作为SM4密钥）。
+ *
+ * <pre>
+ * 发起方A                                             响应方B
+ * a = new SM2KeyAgreement(true, dA, idA)
+ * 发送 a.getEphemeralPublicKey() (R_A)    ------&gt;
+ *                                                     b = new SM2KeyAgreement(false, dB, idB)
+ *                                                     S_B = b.calculateKey(P_A, R_A, idA, null)
+ *                                         &lt;------     发送 b.getEphemeralPublicKey() (R_B)和S_B
+ * S_A = a.calculateKey(P_B, R_B, idB, S_B)
+ * 发送S_A                                 ------&gt;     b.confirm(S_A)
+ * a.getKey()                                          b.getKey()
+ * </pre>
+ *
+ * <p>
+ * 发起方在{@link #calculateKey(ECPublicKeyParameters, byte[], byte[], byte[])}中校验响应方的S_B，
+ * 响应方需调用{@link #confirm(byte[])}校验发起方的S_A后才能取得会话密钥。协商出的会话密钥可放入{@link SM2SessionKeyCache}，
+ * 同一对端的后续消息直接使用对称加密。
+ *
+ * <p>
+ * 此对象非线程安全，临时私钥只用于一次握手。
+ *
+ * @since 2.0.0
+ */
+public class SM2KeyAgreement {
+
+	/**
+	 * 默认会话密钥长度（字节），即SM4密钥长度
+	 */
+	public static final int DEFAULT_KEY_LENGTH = 16;
+
+	private final boolean initiator;
+	private final ECPrivateKeyParameters staticPrivateKey;
+	private final byte[] id;
+	private final int keyLength;
+	private final ECPrivateKeyParameters ephemeralPrivateKey;
+	private final ECPublicKeyParameters ephemeralPublicKey;
+
+	private byte[] key;
+	private byte[] expectedConfirmation;
+	private boolean confirmed;
+
+	/**
+	 * 构造，使用默认会话密钥长度
+	 *
+	 * @param initiator        是否为发起方
+	 * @param staticPrivateKey 己方静态私钥
+	 * @param id               己方用户ID，{@code null}表示使用默认ID
+	 */
+	public SM2KeyAgreement(boolean initiator, ECPrivateKeyParameters staticPrivateKey, byte[] id) {
+		this(initiator, staticPrivateKey, id, DEFAULT_KEY_LENGTH);
+	}
+
+	/**
+	 * 构造
+	 *
+	 * @param initiator        是否为发起方
+	 * @param staticPrivateKey 己方静态私钥
+	 * @param id               己方用户ID，{@code null}表示使用默认ID
+	 * @param keyLength        会话密钥长度（字节）
+	 */
+	public SM2KeyAgreement(boolean initiator, ECPrivateKeyParameters staticPrivateKey, byte[] id, int keyLength) {
+		if (keyLength <= 0) {
+			throw new IllegalArgumentException("Key length must be greater than 0 !");
+		}
+		this.initiator = initiator;
+		this.staticPrivateKey = ECKeyUtil.toSm2Params(staticPrivateKey);
+		this.id = (null == id) ? SM2SignEngine.DEFAULT_USER_ID : id;
+		this.keyLength = keyLength;
+
+		final AsymmetricCipherKeyPair ephemeral = new SM2KeyPairGenerator().generateKeyParams();
+		this.ephemeralPrivateKey = (ECPrivateKeyParameters) ephemeral.getPrivate();
+		this.ephemeralPublicKey = (ECPublicKeyParameters) ephemeral.getPublic();
+	}
+
+	/**
+	 * 是否为发起方
+	 *
+	 * @return 是否为发起方
+	 */
+	public boolean isInitiator() {
+		return this.initiator;
+	}
+
+	/**
+	 * 获取本次握手的临时公钥R（非压缩格式的点编码），需发送给对方
+	 *
+	 * @return 临时公钥
+	 */
+	public byte[] getEphemeralPublicKey() {
+		return this.ephemeralPublicKey.getQ().getEncoded(false);
+	}
+
+	/**
+	 * 计算会话密钥
+	 * <ul>
+	 *     <li>发起方：传入响应方的S_B，校验通过后返回S_A，需发送给响应方，会话密钥可立即使用</li>
+	 *     <li>响应方：peerConfirmation传{@code null}，返回S_B，需与临时公钥一起发送给发起方，校验发起方的S_A后会话密钥才可使用</li>
+	 * </ul>
+	 *
+	 * @param peerPublicKey      对方静态公钥
+	 * @param peerEphemeralKey   对方临时公钥R（点编码）
+	 * @param peerId             对方用户ID，{@code null}表示使用默认ID
+	 * @param peerConfirmation   发起方传入响应方的S_B，响应方传{@code null}
+	 * @return 需发送给对方的确认值，发起方为S_A，响应方为S_B
+	 * @throws CryptoException 响应方的S_B校验失败
+	 */
+	public byte[] calculateKey(ECPublicKeyParameters peerPublicKey, byte[] peerEphemeralKey, byte[] peerId, byte[] peerConfirmation) throws CryptoException {
+		if (null != this.key) {
+			throw new IllegalStateException("Key agreement has already been done !");
+		}
+		if (this.initiator && null == peerConfirmation) {
+			throw new IllegalArgumentException("Initiator must provide the confirmation of responder !");
+		}
+
+		peerPublicKey = ECKeyUtil.toSm2Params(peerPublicKey);
+		final ECDomainParameters domainParams = this.staticPrivateKey.getParameters();
+		final ECPublicKeyParameters peerEphemeral = ECKeyUtil.toPublicParams(peerEphemeralKey, domainParams);
+
+		final SM2KeyExchange exchange = new SM2KeyExchange(new SM3Digest());
+		exchange.init(new ParametersWithID(new SM2KeyExchangePrivateParameters(
+				this.initiator, this.staticPrivateKey, this.ephemeralPrivateKey), this.id));
+		final byte[][] result;
+		try {
+			result = exchange.calculateKeyWithConfirmation(this.keyLength * 8, peerConfirmation,
+					new ParametersWithID(new SM2KeyExchangePublicParameters(peerPublicKey, peerEphemeral),
+							(null == peerId) ? SM2SignEngine.DEFAULT_USER_ID : peerId));
+		} catch (IllegalStateException e) {
+			// 响应方确认值不匹配
+			throw new CryptoException(e);
+		}
+
+		this.key = result[0];
+		if (this.initiator) {
+			this.confirmed = true;
+			return result[1];
+		}
+		this.expectedConfirmation = result[2];
+		return result[1];
+	}
+
+	/**
+	 * 响应方校验发起方发来的S_A，通过后会话密钥可用
+	 *
+	 * @param confirmation 发起方的S_A
+	 * @return 是否通过
+	 */
+	public boolean confirm(byte[] confirmation) {
+		if (this.initiator) {
+			throw new IllegalStateException("Only responder need to confirm !");
+		}
+		if (null == this.expectedConfirmation) {
+			throw new IllegalStateException("Key has not been calculated !");
+		}
+		this.confirmed = org.bouncycastle.util.Arrays.constantTimeAreEqual(this.expectedConfirmation, confirmation);
+		return this.confirmed;
+	}
+
+	/**
+	 * 获取会话密钥，发起方在{@link #calculateKey(ECPublicKeyParameters, byte[], byte[], byte[])}成功后可用，
+	 * 响应方在{@link #confirm(byte[])}通过后可用
+	 *
+	 * @return 会话密钥
+	 */
+	public byte[] getKey() {
+		if (false == this.confirmed) {
+			throw new IllegalStateException("Key has not been confirmed !");
+		}
+		return this.key.clone();
+	}
+
+	/**
+	 * 清零会话密钥，之后不可再获取
+	 */
+	public void destroy() {
+		if (null != this.key) {
+			Arrays.fill(this.key, (byte) 0);
+		}
+		this.confirmed = false;
+	}
+}
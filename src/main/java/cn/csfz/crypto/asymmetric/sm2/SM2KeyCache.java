@@ -0,0 +1,175 @@
+package cn.csfz.crypto.asymmetric.sm2;
+
+import cn.csfz.crypto.ECKeyUtil;
+import cn.csfz.crypto.SecureUtil;
+import cn.csfz.crypto.asymmetric.SM2;
+import org.bouncycastle.crypto.digests.SM3Digest;
+import org.bouncycastle.util.encoders.Hex;
+
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * SM2密钥字符串缓存（LRU）<br>
+ * 将Hex或Base64编码的私钥（PKCS#8或D值）、公钥（X.509或Q值）字符串映射为已解析好密钥的{@link SM2}对象，
+ * 相同密钥字符串不再重复解码和解析。缓存的{@link SM2}对象为并发模式，并共享一个{@link SM2ZCache}，可被多个线程同时使用。<br>
+ * 缓存以密钥字符串的SM3摘要为键，不保留原始的密钥字符串；已解析的密钥仍保存在缓存的{@link SM2}对象中，不再使用时应调用{@link #clear()}。
+ *
+ * <p>
+ * 此对象线程安全。缓存返回的{@link SM2}对象被所有调用方共享，调用方不应修改其密钥或其它设置。
+ *
+ * @since 2.0.0
+ */
+public class SM2KeyCache {
+
+	private final Map<String, SM2> privateCache;
+	private final Map<String, SM2> publicCache;
+	private final SM2ZCache zCache;
+
+	private final AtomicLong hitCount = new AtomicLong();
+	private final AtomicLong missCount = new AtomicLong();
+
+	/**
+	 * 构造
+	 *
+	 * @param maxSize 私钥和公钥各自最多缓存的个数
+	 */
+	public SM2KeyCache(final int maxSize) {
+		if (maxSize <= 0) {
+			throw new IllegalArgumentException("maxSize must be greater than 0 !");
+		}
+		this.privateCache = createLruMap(maxSize);
+		this.publicCache = createLruMap(maxSize);
+		this.zCache = new SM2ZCache(maxSize * 2);
+	}
+
+	/**
+	 * 获取只包含私钥的{@link SM2}对象，不存在时解析并缓存
+	 *
+	 * @param privateKeyStr 私钥的Hex或Base64字符串
+	 * @return {@link SM2}，可用于签名和解密
+	 */
+	public SM2 getPrivate(String privateKeyStr) {
+		return get(this.privateCache, privateKeyStr, true);
+	}
+
+	/**
+	 * 获取只包含公钥的{@link SM2}对象，不存在时解析并缓存
+	 *
+	 * @param publicKeyStr 公钥的Hex或Base64字符串
+	 * @return {@link SM2}，可用于验签和加密
+	 */
+	public SM2 getPublic(String publicKeyStr) {
+		return get(this.publicCache, publicKeyStr, false);
+	}
+
+	/**
+	 * 清空缓存
+	 */
+	public void clear() {
+		synchronized (this.privateCache) {
+			this.privateCache.clear();
+		}
+		synchronized (this.publicCache) {
+			this.publicCache.clear();
+		}
+		this.zCache.clear();
+	}
+
+	/**
+	 * 获取缓存的密钥个数
+	 *
+	 * @return 私钥和公钥的缓存总数
+	 */
+	public int size() {
+		int size;
+		synchronized (this.privateCache) {
+			size = this.privateCache.size();
+		}
+		synchronized (this.publicCache) {
+			size += this.publicCache.size();
+		}
+		return size;
+	}
+
+	/**
+	 * 获取命中次数
+	 *
+	 * @return 命中次数
+	 */
+	public long getHitCount() {
+		return this.hitCount.get();
+	}
+
+	/**
+	 * 获取未命中（解析密钥）次数
+	 *
+	 * @return 未命中次数
+	 */
+	public long getMissCount() {
+		return this.missCount.get();
+	}
+
+	/**
+	 * 从缓存获取，不存在时在锁外解析密钥后放入缓存
+	 *
+	 * @param cache     缓存
+	 * @param keyStr    密钥字符串
+	 * @param isPrivate 是否为私钥
+	 * @return {@link SM2}
+	 */
+	private SM2 get(Map<String, SM2> cache, String keyStr, boolean isPrivate) {
+		final String cacheKey = digest(keyStr);
+		SM2 sm2;
+		synchronized (cache) {
+			sm2 = cache.get(cacheKey);
+		}
+		if (null != sm2) {
+			this.hitCount.incrementAndGet();
+			return sm2;
+		}
+		this.missCount.incrementAndGet();
+
+		final byte[] key = SecureUtil.decode(keyStr);
+		sm2 = isPrivate ? new SM2(ECKeyUtil.decodePrivateKeyParams(key), null)
+				: new SM2(null, ECKeyUtil.decodePublicKeyParams(key));
+		sm2.setConcurrent(true).setZCache(this.zCache);
+		synchronized (cache) {
+			final SM2 exists = cache.get(cacheKey);
+			if (null != exists) {
+				// 其它线程已放入
+				return exists;
+			}
+			cache.put(cacheKey, sm2);
+		}
+		return sm2;
+	}
+
+	/**
+	 * 计算密钥字符串的SM3摘要，作为缓存键
+	 *
+	 * @param keyStr 密钥字符串
+	 * @return 摘要的Hex字符串
+	 */
+	private static String digest(String keyStr) {
+		final byte[] data = keyStr.getBytes(StandardCharsets.UTF_8);
+		final SM3Digest digest = new SM3Digest();
+		digest.update(data, 0, data.length);
+		final byte[] result = new byte[digest.getDigestSize()];
+		digest.doFinal(result, 0);
+		return Hex.toHexString(result);
+	}
+
+	private static Map<String, SM2> createLruMap(final int maxSize) {
+		return new LinkedHashMap<String, SM2>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, SM2> eldest) {
+				return size() > maxSize;
+			}
+		};
+	}
+}
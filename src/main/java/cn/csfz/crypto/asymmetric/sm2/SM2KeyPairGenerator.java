@@ -0,0 +1,98 @@
+package cn.csfz.crypto.asymmetric.sm2;
+
+import cn.csfz.crypto.SmUtil;
+import org.bouncycastle.asn1.x9.X9ECParameters;
+import org.bouncycastle.crypto.AsymmetricCipherKeyPair;
+import org.bouncycastle.crypto.generators.ECKeyPairGenerator;
+import org.bouncycastle.crypto.params.ECDomainParameters;
+import org.bouncycastle.crypto.params.ECKeyGenerationParameters;
+import org.bouncycastle.crypto.params.ECPrivateKeyParameters;
+import org.bouncycastle.crypto.params.ECPublicKeyParameters;
+import org.bouncycastle.jcajce.provider.asymmetric.ec.BCECPrivateKey;
+import org.bouncycastle.jcajce.provider.asymmetric.ec.BCECPublicKey;
+import org.bouncycastle.jcajce.provider.asymmetric.util.ECUtil;
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+import org.bouncycastle.jce.spec.ECNamedCurveSpec;
+import org.bouncycastle.math.ec.ECMultiplier;
+
+import java.security.KeyPair;
+import java.security.SecureRandom;
+
+/**
+ * SM2密钥对生成器<br>
+ * 直接使用BC的{@link ECKeyPairGenerator}生成sm2p256v1曲线上的密钥对，并使用{@link SM2FixedPointMultiplier}计算公钥，
+ * 省去每次创建{@link java.security.KeyPairGenerator}的开销。生成的{@link KeyPair}与JCE方式生成的格式一致。
+ *
+ * <p>
+ * 此对象线程安全，可在多个线程间共享。
+ *
+ * @since 2.0.0
+ */
+public class SM2KeyPairGenerator {
+
+	private static final String ALGORITHM_EC = "EC";
+
+	/**
+	 * sm2p256v1曲线参数，使用BC中针对此曲线优化的实现
+	 */
+	private static final X9ECParameters X9_PARAMS = ECUtil.getNamedCurveByName(SmUtil.SM2_CURVE_NAME);
+	private static final ECDomainParameters DOMAIN_PARAMS = SmUtil.SM2_DOMAIN_PARAMS;
+	private static final ECNamedCurveSpec CURVE_SPEC = new ECNamedCurveSpec(SmUtil.SM2_CURVE_NAME,
+			X9_PARAMS.getCurve(), X9_PARAMS.getG(), X9_PARAMS.getN(), X9_PARAMS.getH(), X9_PARAMS.getSeed());
+
+	private final ECKeyPairGenerator generator;
+
+	/**
+	 * 构造，使用默认的随机数生成器
+	 */
+	public SM2KeyPairGenerator() {
+		this(null);
+	}
+
+	/**
+	 * 构造
+	 *
+	 * @param random 随机数生成器，{@code null}表示使用默认的随机数生成器
+	 */
+	public SM2KeyPairGenerator(SecureRandom random) {
+		this.generator = new ECKeyPairGenerator() {
+			@Override
+			protected ECMultiplier createBasePointMultiplier() {
+				return SM2FixedPointMultiplier.INSTANCE;
+			}
+		};
+		this.generator.init(new ECKeyGenerationParameters(DOMAIN_PARAMS, (null == random) ? new SecureRandom() : random));
+	}
+
+	/**
+	 * 生成密钥对参数
+	 *
+	 * @return 密钥对参数，包括{@link ECPrivateKeyParameters}和{@link ECPublicKeyParameters}
+	 */
+	public AsymmetricCipherKeyPair generateKeyParams() {
+		return this.generator.generateKeyPair();
+	}
+
+	/**
+	 * 生成密钥对，私钥为PKCS#8格式，公钥为X.509格式
+	 *
+	 * @return {@link KeyPair}
+	 */
+	public KeyPair generateKeyPair() {
+		return toKeyPair(generateKeyParams());
+	}
+
+	/**
+	 * 将密钥对参数转换为{@link KeyPair}
+	 *
+	 * @param keyParams 密钥对参数
+	 * @return {@link KeyPair}
+	 */
+	public static KeyPair toKeyPair(AsymmetricCipherKeyPair keyParams) {
+		final BCECPublicKey publicKey = new BCECPublicKey(ALGORITHM_EC,
+				(ECPublicKeyParameters) keyParams.getPublic(), CURVE_SPEC, BouncyCastleProvider.CONFIGURATION);
+		final BCECPrivateKey privateKey = new BCECPrivateKey(ALGORITHM_EC,
+				(ECPrivateKeyParameters) keyParams.getPrivate(), publicKey, CURVE_SPEC, BouncyCastleProvider.CONFIGURATION);
+		return new KeyPair(publicKey, privateKey);
+	}
+}
@@ -0,0 +1,216 @@
+package cn.csfz.crypto.asymmetric.sm2;
+
+import cn.csfz.crypto.asymmetric.SM2;
+import org.bouncycastle.crypto.AsymmetricCipherKeyPair;
+import org.bouncycastle.crypto.params.ECPrivateKeyParameters;
+import org.bouncycastle.crypto.params.ECPublicKeyParameters;
+
+import java.io.Closeable;
+import java.security.KeyPair;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * SM2密钥对池<br>
+ * 由后台工作线程预先生成密钥对并放入有界队列，调用方直接取出现成的密钥对，适用于需要短时间内大量生成密钥对的场景。
+ * 池为空时在调用线程中即时生成，不会阻塞调用方。
+ *
+ * <pre>
+ * SM2KeyPairPool pool = new SM2KeyPairPool(10000, 2);
+ * KeyPair keyPair = pool.getKeyPair();
+ * SM2 sm2 = pool.getSM2();
+ * </pre>
+ *
+ * <p>
+ * 此对象线程安全，不再使用时应调用{@link #close()}停止后台线程。池中每个密钥对只会被取出一次。
+ *
+ * @since 2.0.0
+ */
+public class SM2KeyPairPool implements Closeable {
+
+	private final BlockingQueue<PooledKeyPair> queue;
+	private final SM2KeyPairGenerator generator = new SM2KeyPairGenerator();
+	private final Thread[] workers;
+	private final long startTime;
+
+	private final AtomicLong generatedCount = new AtomicLong();
+	private final AtomicLong hitCount = new AtomicLong();
+	private final AtomicLong missCount = new AtomicLong();
+
+	/**
+	 * 构造，使用一个后台线程填充
+	 *
+	 * @param capacity 池容量
+	 */
+	public SM2KeyPairPool(int capacity) {
+		this(capacity, 1);
+	}
+
+	/**
+	 * 构造
+	 *
+	 * @param capacity    池容量
+	 * @param workerCount 填充池的后台线程数
+	 */
+	public SM2KeyPairPool(int capacity, int workerCount) {
+		if (capacity <= 0) {
+			throw new IllegalArgumentException("Capacity must be greater than 0");
+		}
+		if (workerCount <= 0) {
+			throw new IllegalArgumentException("Worker count must be greater than 0");
+		}
+		this.queue = new ArrayBlockingQueue<PooledKeyPair>(capacity);
+		this.startTime = System.nanoTime();
+
+		this.workers = new Thread[workerCount];
+		for (int i = 0; i < workerCount; i++) {
+			final Thread worker = new Thread(new Runnable() {
+				@Override
+				public void run() {
+					fill();
+				}
+			}, "sm2-keypair-pool-" + i);
+			worker.setDaemon(true);
+			worker.start();
+			this.workers[i] = worker;
+		}
+	}
+
+	/**
+	 * 取出一个密钥对参数
+	 *
+	 * @return 密钥对参数，包括{@link ECPrivateKeyParameters}和{@link ECPublicKeyParameters}
+	 */
+	public AsymmetricCipherKeyPair getKeyParams() {
+		return take().keyParams;
+	}
+
+	/**
+	 * 取出一个密钥对，私钥为PKCS#8格式，公钥为X.509格式
+	 *
+	 * @return {@link KeyPair}
+	 */
+	public KeyPair getKeyPair() {
+		return take().keyPair;
+	}
+
+	/**
+	 * 取出一个密钥对，并创建使用此密钥对的{@link SM2}对象
+	 *
+	 * @return {@link SM2}
+	 */
+	public SM2 getSM2() {
+		final AsymmetricCipherKeyPair keyParams = getKeyParams();
+		return new SM2((ECPrivateKeyParameters) keyParams.getPrivate(), (ECPublicKeyParameters) keyParams.getPublic());
+	}
+
+	/**
+	 * 获取池容量
+	 *
+	 * @return 池容量
+	 */
+	public int getCapacity() {
+		return this.queue.size() + this.queue.remainingCapacity();
+	}
+
+	/**
+	 * 获取池中当前可用的密钥对个数
+	 *
+	 * @return 可用密钥对个数
+	 */
+	public int getAvailable() {
+		return this.queue.size();
+	}
+
+	/**
+	 * 获取后台线程已生成的密钥对总数
+	 *
+	 * @return 生成总数
+	 */
+	public long getGeneratedCount() {
+		return this.generatedCount.get();
+	}
+
+	/**
+	 * 获取后台线程自池创建以来的平均填充速率
+	 *
+	 * @return 每秒生成的密钥对数
+	 */
+	public double getRefillRate() {
+		final long elapsed = System.nanoTime() - this.startTime;
+		return (elapsed <= 0) ? 0 : this.generatedCount.get() * 1e9 / elapsed;
+	}
+
+	/**
+	 * 获取从池中取得密钥对的次数
+	 *
+	 * @return 命中次数
+	 */
+	public long getHitCount() {
+		return this.hitCount.get();
+	}
+
+	/**
+	 * 获取池为空、即时生成密钥对的次数
+	 *
+	 * @return 未命中次数
+	 */
+	public long getMissCount() {
+		return this.missCount.get();
+	}
+
+	/**
+	 * 停止后台线程并清空池，之后的密钥对均即时生成
+	 */
+	@Override
+	public void close() {
+		for (Thread worker : this.workers) {
+			worker.interrupt();
+		}
+		this.queue.clear();
+	}
+
+	/**
+	 * 从池中取出一个密钥对，池为空时即时生成
+	 *
+	 * @return 密钥对
+	 */
+	private PooledKeyPair take() {
+		final PooledKeyPair keyPair = this.queue.poll();
+		if (null != keyPair) {
+			this.hitCount.incrementAndGet();
+			return keyPair;
+		}
+		this.missCount.incrementAndGet();
+		return new PooledKeyPair(this.generator.generateKeyParams());
+	}
+
+	/**
+	 * 后台线程持续填充池，池满时阻塞等待
+	 */
+	private void fill() {
+		try {
+			while (false == Thread.currentThread().isInterrupted()) {
+				this.queue.put(new PooledKeyPair(this.generator.generateKeyParams()));
+				this.generatedCount.incrementAndGet();
+			}
+		} catch (InterruptedException e) {
+			// 池已关闭
+		}
+		this.queue.clear();
+	}
+
+	/**
+	 * 池中的密钥对，{@link KeyPair}的转换开销较大，也在后台线程中完成
+	 */
+	private static class PooledKeyPair {
+		private final AsymmetricCipherKeyPair keyParams;
+		private final KeyPair keyPair;
+
+		PooledKeyPair(AsymmetricCipherKeyPair keyParams) {
+			this.keyParams = keyParams;
+			this.keyPair = SM2KeyPairGenerator.toKeyPair(keyParams);
+		}
+	}
+}
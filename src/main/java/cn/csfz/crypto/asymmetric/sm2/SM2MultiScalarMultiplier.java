@@ -0,0 +1,196 @@
+package cn.csfz.crypto.asymmetric.sm2;
+
+import org.bouncycastle.math.ec.ECAlgorithms;
+import org.bouncycastle.math.ec.ECCurve;
+import org.bouncycastle.math.ec.ECPoint;
+import org.bouncycastle.math.ec.PreCompCallback;
+import org.bouncycastle.math.ec.PreCompInfo;
+import org.bouncycastle.math.ec.WNafPreCompInfo;
+import org.bouncycastle.math.ec.WNafUtil;
+
+import java.math.BigInteger;
+
+/**
+ * SM2验签多标量乘法器，一次交错（interleaved）wNAF遍历计算 s·G + t·Q<br>
+ * 两个标量共用同一串倍点运算，每个标量只在非零位上各做一次点加：
+ * <ul>
+ *     <li>基点G使用宽窗口（{@link #WIDTH_G}）的奇数倍点表，表只构建一次并保存在点对象的预计算信息中，所有调用共享</li>
+ *     <li>公钥Q使用{@link #WIDTH_Q}窗口的奇数倍点表，表保存在Q点对象中，同一个公钥对象（如使用{@link SM2PublicKeyCache}）重复验签时复用</li>
+ * </ul>
+ *
+ * <p>
+ * 与BC的{@link ECAlgorithms#sumOfTwoMultiplies(ECPoint, BigInteger, ECPoint, BigInteger)}相比，G的窗口更宽（BC最大为8），点加次数更少，
+ * 计算结果完全一致。同一个Q对象被多次使用后（BC的wNAF预计算信息标记为promoted），两个点均改用BC的固定点梳状表计算，
+ * 倍点次数大幅减少，比wNAF更快。<br>
+ * 此实现耗时与标量相关，只适用于标量公开的验签运算，不可用于签名。
+ *
+ * @since 2.0.0
+ */
+public class SM2MultiScalarMultiplier {
+
+	/**
+	 * 单例
+	 */
+	public static final SM2MultiScalarMultiplier INSTANCE = new SM2MultiScalarMultiplier();
+
+	/**
+	 * 基点G的窗口宽度，预计算2^(WIDTH_G-2)=256个奇数倍点
+	 */
+	public static final int WIDTH_G = 10;
+	/**
+	 * 公钥Q的窗口宽度，预计算2^(WIDTH_Q-2)=8个奇数倍点
+	 */
+	public static final int WIDTH_Q = 5;
+
+	/**
+	 * 预计算表在点对象中的名称
+	 */
+	private static final String PRECOMP_NAME = "cn.csfz.sm2.wnaf";
+
+	/**
+	 * 预计算指定基点的倍点表，可在启动时调用以避免首次运算时的构建开销
+	 *
+	 * @param g 基点
+	 */
+	public static void precompute(ECPoint g) {
+		getTable(g);
+	}
+
+	/**
+	 * 计算 s·G + t·Q
+	 *
+	 * @param g 基点
+	 * @param s G的标量，非负
+	 * @param q 点，通常为公钥，曲线不同时导入到G所在曲线
+	 * @param t Q的标量，非负
+	 * @return 结果点（未标准化）
+	 */
+	public ECPoint sumOfTwoMultiplies(ECPoint g, BigInteger s, ECPoint q, BigInteger t) {
+		if (s.signum() < 0 || t.signum() < 0) {
+			throw new IllegalArgumentException("Scalar must be non-negative !");
+		}
+		final ECCurve curve = g.getCurve();
+		q = ECAlgorithms.importPoint(curve, q);
+
+		final WNafPreCompInfo infoQ = WNafUtil.precompute(q, WIDTH_Q, true);
+		if (infoQ.isPromoted()) {
+			// 频繁使用的公钥，BC使用G和Q的固定点梳状表
+			return ECAlgorithms.sumOfTwoMultiplies(g, s, q, t);
+		}
+		final ECPoint[] preCompQ = infoQ.getPreComp();
+		final ECPoint[] preCompNegQ = infoQ.getPreCompNeg();
+
+		final OddMultiplesTable tableG = getTable(g);
+		final int len = Math.max(s.bitLength(), t.bitLength()) + 1;
+		final int[] digitsG = toDigits(WNafUtil.generateCompactWindowNaf(WIDTH_G, s), len);
+		final int[] digitsQ = toDigits(WNafUtil.generateCompactWindowNaf(Math.min(16, infoQ.getWidth()), t), len);
+
+		final ECPoint infinity = curve.getInfinity();
+		ECPoint r = infinity;
+		int zeroes = 0;
+		for (int i = len - 1; i >= 0; i--) {
+			final int digitG = digitsG[i];
+			final int digitQ = digitsQ[i];
+			if (0 == (digitG | digitQ)) {
+				zeroes++;
+				continue;
+			}
+
+			ECPoint p = infinity;
+			if (0 != digitG) {
+				p = p.add((digitG < 0 ? tableG.negPoints : tableG.points)[Math.abs(digitG) >>> 1]);
+			}
+			if (0 != digitQ) {
+				p = p.add((digitQ < 0 ? preCompNegQ : preCompQ)[Math.abs(digitQ) >>> 1]);
+			}
+			if (zeroes > 0) {
+				r = r.timesPow2(zeroes);
+				zeroes = 0;
+			}
+			r = r.twicePlus(p);
+		}
+		if (zeroes > 0) {
+			r = r.timesPow2(zeroes);
+		}
+		return r;
+	}
+
+	/**
+	 * 将紧凑格式的wNAF（每项高16位为数字，低16位为其下方的连续零个数）展开为按位的数字数组
+	 *
+	 * @param compactNaf 紧凑格式的wNAF
+	 * @param len        展开长度
+	 * @return 数字数组，下标为位
+	 */
+	private static int[] toDigits(int[] compactNaf, int len) {
+		final int[] digits = new int[len];
+		int bit = 0;
+		for (int wi : compactNaf) {
+			bit += wi & 0xFFFF;
+			digits[bit++] = wi >> 16;
+		}
+		return digits;
+	}
+
+	/**
+	 * 获取或构建基点的奇数倍点表
+	 *
+	 * @param g 基点
+	 * @return 预计算表
+	 */
+	private static OddMultiplesTable getTable(final ECPoint g) {
+		final ECCurve curve = g.getCurve();
+		return (OddMultiplesTable) curve.precompute(g, PRECOMP_NAME, new PreCompCallback() {
+			@Override
+			public PreCompInfo precompute(PreCompInfo existing) {
+				if (existing instanceof OddMultiplesTable) {
+					return existing;
+				}
+				return buildTable(g);
+			}
+		});
+	}
+
+	/**
+	 * 构建奇数倍点表：G, 3G, 5G, ..., (2^(WIDTH_G-1)-1)G，及其负点
+	 *
+	 * @param g 基点
+	 * @return 预计算表
+	 */
+	private static OddMultiplesTable buildTable(ECPoint g) {
+		final ECCurve curve = g.getCurve();
+		final int size = 1 << (WIDTH_G - 2);
+		final ECPoint[] points = new ECPoint[size];
+		points[0] = g.normalize();
+		final ECPoint twice = points[0].twice();
+		for (int i = 1; i < size; i++) {
+			points[i] = points[i - 1].add(twice);
+		}
+		curve.normalizeAll(points);
+
+		final ECPoint[] negPoints = new ECPoint[size];
+		for (int i = 0; i < size; i++) {
+			negPoints[i] = points[i].negate();
+		}
+		return new OddMultiplesTable(points, negPoints);
+	}
+
+	/**
+	 * 基点的奇数倍点表，所有点均为仿射坐标
+	 */
+	private static class OddMultiplesTable implements PreCompInfo {
+		/**
+		 * 第i项为(2i+1)·G
+		 */
+		private final ECPoint[] points;
+		/**
+		 * 第i项为-(2i+1)·G
+		 */
+		private final ECPoint[] negPoints;
+
+		OddMultiplesTable(ECPoint[] points, ECPoint[] negPoints) {
+			this.points = points;
+			this.negPoints = negPoints;
+		}
+	}
+}
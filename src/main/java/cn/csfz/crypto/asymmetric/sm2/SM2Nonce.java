@@ -0,0 +1,44 @@
+package cn.csfz.crypto.asymmetric.sm2;
+
+import java.math.BigInteger;
+
+/**
+ * SM2签名使用的随机数k及其对应点k·G的x坐标x1<br>
+ * 二者与待签名消息无关，可以预先计算。每个随机数只能用于一次签名，重复使用将泄露私钥。
+ *
+ * @since 2.0.0
+ */
+public class SM2Nonce {
+
+	private final BigInteger k;
+	private final BigInteger x1;
+
+	/**
+	 * 构造
+	 *
+	 * @param k  随机数k，取值范围[1, n-1]
+	 * @param x1 点k·G的仿射x坐标
+	 */
+	public SM2Nonce(BigInteger k, BigInteger x1) {
+		this.k = k;
+		this.x1 = x1;
+	}
+
+	/**
+	 * 获取随机数k
+	 *
+	 * @return 随机数k
+	 */
+	public BigInteger getK() {
+		return this.k;
+	}
+
+	/**
+	 * 获取点k·G的仿射x坐标
+	 *
+	 * @return x1
+	 */
+	public BigInteger getX1() {
+		return this.x1;
+	}
+}
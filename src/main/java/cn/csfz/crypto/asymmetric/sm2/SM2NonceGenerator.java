@@ -0,0 +1,23 @@
+package cn.csfz.crypto.asymmetric.sm2;
+
+import org.bouncycastle.crypto.params.ECPrivateKeyParameters;
+
+/**
+ * SM2签名随机数生成器，用于替换{@link SM2SignEngine}默认的即时随机数计算
+ *
+ * @see SM2SignEngine#setNonceGenerator(SM2NonceGenerator)
+ * @since 2.0.0
+ */
+public interface SM2NonceGenerator {
+
+	/**
+	 * 生成一个签名随机数，每次调用返回的随机数只能使用一次<br>
+	 * 随机数导致r = 0、r + k = n或s = 0时签名引擎会再次调用此方法，因此每次调用须返回新的随机数；
+	 * 连续多次无效时签名失败，不会无限重试。
+	 *
+	 * @param privateKey 签名私钥
+	 * @param e          消息摘要e = H(Z || M)
+	 * @return {@link SM2Nonce}
+	 */
+	SM2Nonce generate(ECPrivateKeyParameters privateKey, byte[] e);
+}
@@ -0,0 +1,163 @@
+package cn.csfz.crypto.asymmetric.sm2;
+
+import org.bouncycastle.crypto.CryptoServicesRegistrar;
+import org.bouncycastle.crypto.params.ECDomainParameters;
+import org.bouncycastle.crypto.params.ECPrivateKeyParameters;
+import org.bouncycastle.math.ec.ECPoint;
+import org.bouncycastle.util.BigIntegers;
+
+import java.io.Closeable;
+import java.math.BigInteger;
+import java.security.SecureRandom;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * SM2签名随机数池（离线/在线签名）<br>
+ * 签名中开销最大的部分（生成k并计算k·G）与消息无关，此池由后台线程预先计算(k, x1)并放入有界队列，
+ * 签名时直接从池中取出，只需计算SM3摘要和少量模运算。池为空时在调用线程中即时计算，不会阻塞签名。
+ *
+ * <pre>
+ * SM2NoncePool pool = new SM2NoncePool(SmUtil.SM2_DOMAIN_PARAMS, 1024);
+ * sm2.setNonceGenerator(pool);
+ * </pre>
+ *
+ * <p>
+ * 此对象线程安全，可在多个SM2对象之间共享，不再使用时应调用{@link #close()}停止后台线程。
+ * 池中每个随机数只会被取出一次。
+ *
+ * @since 2.0.0
+ */
+public class SM2NoncePool implements SM2NonceGenerator, Closeable {
+
+	private final ECDomainParameters domainParams;
+	private final SecureRandom random;
+	private final BlockingQueue<SM2Nonce> queue;
+	private final Thread worker;
+
+	private final AtomicLong hitCount = new AtomicLong();
+	private final AtomicLong missCount = new AtomicLong();
+
+	/**
+	 * 构造，使用默认的安全随机数生成器
+	 *
+	 * @param domainParams 曲线参数，只为使用此曲线的私钥提供随机数
+	 * @param capacity     池容量
+	 */
+	public SM2NoncePool(ECDomainParameters domainParams, int capacity) {
+		this(domainParams, capacity, null);
+	}
+
+	/**
+	 * 构造
+	 *
+	 * @param domainParams 曲线参数，只为使用此曲线的私钥提供随机数
+	 * @param capacity     池容量
+	 * @param random       安全随机数生成器，{@code null}表示使用默认
+	 */
+	public SM2NoncePool(ECDomainParameters domainParams, int capacity, SecureRandom random) {
+		if (capacity <= 0) {
+			throw new IllegalArgumentException("Capacity must be greater than 0");
+		}
+		this.domainParams = domainParams;
+		this.random = (null == random) ? CryptoServicesRegistrar.getSecureRandom() : random;
+		this.queue = new ArrayBlockingQueue<SM2Nonce>(capacity);
+
+		this.worker = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				fill();
+			}
+		}, "sm2-nonce-pool");
+		this.worker.setDaemon(true);
+		this.worker.start();
+	}
+
+	@Override
+	public SM2Nonce generate(ECPrivateKeyParameters privateKey, byte[] e) {
+		if (false == this.domainParams.equals(privateKey.getParameters())) {
+			// 其它曲线的私钥，直接即时计算
+			return createNonce(privateKey.getParameters());
+		}
+		final SM2Nonce nonce = this.queue.poll();
+		if (null != nonce) {
+			this.hitCount.incrementAndGet();
+			return nonce;
+		}
+		this.missCount.incrementAndGet();
+		return createNonce(this.domainParams);
+	}
+
+	/**
+	 * 获取池中当前可用的随机数个数
+	 *
+	 * @return 池深度
+	 */
+	public int getDepth() {
+		return this.queue.size();
+	}
+
+	/**
+	 * 获取池容量
+	 *
+	 * @return 池容量
+	 */
+	public int getCapacity() {
+		return this.queue.size() + this.queue.remainingCapacity();
+	}
+
+	/**
+	 * 获取从池中取得随机数的次数
+	 *
+	 * @return 命中次数
+	 */
+	public long getHitCount() {
+		return this.hitCount.get();
+	}
+
+	/**
+	 * 获取池为空、即时计算随机数的次数
+	 *
+	 * @return 未命中次数
+	 */
+	public long getMissCount() {
+		return this.missCount.get();
+	}
+
+	/**
+	 * 停止后台线程并清空池，之后的随机数均即时计算
+	 */
+	@Override
+	public void close() {
+		this.worker.interrupt();
+		this.queue.clear();
+	}
+
+	/**
+	 * 后台线程持续填充池，池满时阻塞等待
+	 */
+	private void fill() {
+		try {
+			while (false == Thread.currentThread().isInterrupted()) {
+				this.queue.put(createNonce(this.domainParams));
+			}
+		} catch (InterruptedException e) {
+			// 池已关闭
+		}
+		this.queue.clear();
+	}
+
+	/**
+	 * 即时计算随机数，k在[1, n-1]中均匀选取
+	 *
+	 * @param params 曲线参数
+	 * @return {@link SM2Nonce}
+	 */
+	private SM2Nonce createNonce(ECDomainParameters params) {
+		final BigInteger n = params.getN();
+		final BigInteger k = BigIntegers.createRandomInRange(BigInteger.ONE, n.subtract(BigInteger.ONE), this.random);
+		final ECPoint p = SM2FixedPointMultiplier.INSTANCE.multiply(params.getG(), k).normalize();
+		return new SM2Nonce(k, p.getAffineXCoord().toBigInteger());
+	}
+}
@@ -0,0 +1,237 @@
+package cn.csfz.crypto.asymmetric.sm2;
+
+import org.bouncycastle.crypto.params.ECPublicKeyParameters;
+import org.bouncycastle.math.ec.ECPoint;
+import org.bouncycastle.math.ec.WNafPreCompInfo;
+import org.bouncycastle.math.ec.WNafUtil;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * SM2公钥预计算表缓存（LRU）<br>
+ * 验签（s·G + t·Q）和加密（k·Q）都需要对对方公钥Q做变基点乘法，BC会将Q的wNAF预计算表保存在点对象上，
+ * 但每次重新解析公钥得到的都是新的点对象，预计算表无法复用。<br>
+ * 此缓存以公钥点为键保存已完成预计算的{@link ECPublicKeyParameters}，同一公钥的后续验签和加密直接使用已有的预计算表。
+ *
+ * <p>
+ * 缓存按条目数和估算的内存占用双重限制，超出任一限制时淘汰最久未使用的公钥，并提供命中、未命中和淘汰计数。<br>
+ * 此对象线程安全，可在多个{@link cn.csfz.crypto.asymmetric.SM2}对象之间共享，
+ * 见{@link cn.csfz.crypto.asymmetric.SM2#setPublicKeyCache(SM2PublicKeyCache)}。
+ *
+ * @since 2.0.0
+ */
+public class SM2PublicKeyCache {
+
+	/**
+	 * 默认wNAF窗口宽度，每个公钥预计算32个点
+	 */
+	public static final int DEFAULT_WIDTH = 6;
+
+	private final int maxSize;
+	private final long maxBytes;
+	private final int width;
+	private final LinkedHashMap<ECPoint, Entry> cache;
+	/**
+	 * 当前缓存估算占用的字节数，由cache的锁保护
+	 */
+	private long bytes;
+
+	private final AtomicLong hitCount = new AtomicLong();
+	private final AtomicLong missCount = new AtomicLong();
+	private final AtomicLong evictionCount = new AtomicLong();
+
+	/**
+	 * 构造，不限制内存，使用默认窗口宽度
+	 *
+	 * @param maxSize 最多缓存的公钥数
+	 */
+	public SM2PublicKeyCache(int maxSize) {
+		this(maxSize, Long.MAX_VALUE);
+	}
+
+	/**
+	 * 构造，使用默认窗口宽度
+	 *
+	 * @param maxSize  最多缓存的公钥数
+	 * @param maxBytes 预计算表最多占用的内存（估算值），单位字节
+	 */
+	public SM2PublicKeyCache(int maxSize, long maxBytes) {
+		this(maxSize, maxBytes, DEFAULT_WIDTH);
+	}
+
+	/**
+	 * 构造
+	 *
+	 * @param maxSize  最多缓存的公钥数
+	 * @param maxBytes 预计算表最多占用的内存（估算值），单位字节
+	 * @param width    wNAF窗口宽度，范围2~16，越大验签越快，每个公钥占用的内存也越多（约2^(width-1)个点）
+	 */
+	public SM2PublicKeyCache(int maxSize, long maxBytes, int width) {
+		if (maxSize <= 0) {
+			throw new IllegalArgumentException("maxSize must be greater than 0 !");
+		}
+		if (width < 2 || width > 16) {
+			throw new IllegalArgumentException("width must be in range [2, 16] !");
+		}
+		this.maxSize = maxSize;
+		this.maxBytes = maxBytes;
+		this.width = width;
+		this.cache = new LinkedHashMap<ECPoint, Entry>(16, 0.75f, true);
+	}
+
+	/**
+	 * 获取带预计算表的公钥参数，不存在时对传入的公钥完成预计算并缓存
+	 *
+	 * @param publicKeyParams 公钥参数
+	 * @return 缓存的公钥参数，与传入的公钥相同（点相等）
+	 */
+	public ECPublicKeyParameters get(ECPublicKeyParameters publicKeyParams) {
+		final ECPoint q = publicKeyParams.getQ();
+		Entry entry;
+		synchronized (this.cache) {
+			entry = this.cache.get(q);
+		}
+		if (null != entry) {
+			hitCount.incrementAndGet();
+			return entry.params;
+		}
+		missCount.incrementAndGet();
+
+		// 预计算在锁外进行，避免阻塞其它公钥的查询
+		final WNafPreCompInfo info = WNafUtil.precompute(q, this.width, true);
+		entry = new Entry(publicKeyParams, estimateBytes(q, info));
+		synchronized (this.cache) {
+			final Entry existing = this.cache.get(q);
+			if (null != existing) {
+				return existing.params;
+			}
+			this.cache.put(q, entry);
+			this.bytes += entry.bytes;
+			evict();
+		}
+		return publicKeyParams;
+	}
+
+	/**
+	 * 移除指定公钥的缓存
+	 *
+	 * @param publicKeyParams 公钥参数
+	 */
+	public void remove(ECPublicKeyParameters publicKeyParams) {
+		synchronized (this.cache) {
+			final Entry entry = this.cache.remove(publicKeyParams.getQ());
+			if (null != entry) {
+				this.bytes -= entry.bytes;
+			}
+		}
+	}
+
+	/**
+	 * 清空缓存，计数不清零
+	 */
+	public void clear() {
+		synchronized (this.cache) {
+			this.cache.clear();
+			this.bytes = 0;
+		}
+	}
+
+	/**
+	 * 当前缓存的公钥数
+	 *
+	 * @return 公钥数
+	 */
+	public int size() {
+		synchronized (this.cache) {
+			return this.cache.size();
+		}
+	}
+
+	/**
+	 * 当前缓存的预计算表估算占用的内存，单位字节
+	 *
+	 * @return 估算的内存占用
+	 */
+	public long getMemoryBytes() {
+		synchronized (this.cache) {
+			return this.bytes;
+		}
+	}
+
+	/**
+	 * 命中次数
+	 *
+	 * @return 命中次数
+	 */
+	public long getHitCount() {
+		return hitCount.get();
+	}
+
+	/**
+	 * 未命中次数
+	 *
+	 * @return 未命中次数
+	 */
+	public long getMissCount() {
+		return missCount.get();
+	}
+
+	/**
+	 * 因超出条目数或内存限制而淘汰的次数
+	 *
+	 * @return 淘汰次数
+	 */
+	public long getEvictionCount() {
+		return evictionCount.get();
+	}
+
+	/**
+	 * 淘汰最久未使用的条目直到满足条目数和内存限制，需在持有cache锁时调用
+	 */
+	private void evict() {
+		final Iterator<Map.Entry<ECPoint, Entry>> iterator = this.cache.entrySet().iterator();
+		while ((this.cache.size() > this.maxSize || this.bytes > this.maxBytes) && iterator.hasNext()) {
+			this.bytes -= iterator.next().getValue().bytes;
+			iterator.remove();
+			evictionCount.incrementAndGet();
+		}
+	}
+
+	/**
+	 * 估算预计算表占用的内存，每个点按两个坐标及对象头估算
+	 *
+	 * @param q    公钥点
+	 * @param info 预计算信息
+	 * @return 估算的字节数
+	 */
+	private static long estimateBytes(ECPoint q, WNafPreCompInfo info) {
+		final int fieldBytes = (q.getCurve().getFieldSize() + 7) / 8;
+		final long pointBytes = 2L * (fieldBytes + 32) + 48;
+		long count = 1;
+		final ECPoint[] preComp = info.getPreComp();
+		if (null != preComp) {
+			count += preComp.length;
+		}
+		final ECPoint[] preCompNeg = info.getPreCompNeg();
+		if (null != preCompNeg) {
+			count += preCompNeg.length;
+		}
+		return count * pointBytes;
+	}
+
+	/**
+	 * 缓存条目
+	 */
+	private static class Entry {
+		private final ECPublicKeyParameters params;
+		private final long bytes;
+
+		Entry(ECPublicKeyParameters params, long bytes) {
+			this.params = params;
+			this.bytes = bytes;
+		}
+	}
+}
@@ -0,0 +1,169 @@
+package cn.csfz.crypto.asymmetric.sm2;
+
+import org.bouncycastle.crypto.params.ECPublicKeyParameters;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * SM2公钥解码注册表（LRU）<br>
+ * 将公钥的编码字节（Q值，或X.509、PKCS#1格式）映射为已解码并校验过的{@link ECPublicKeyParameters}。
+ * 压缩格式的Q值解码需要模平方根运算，且解码后需校验点是否在曲线上，相同公钥重复解码时只需一次哈希查找。
+ *
+ * <p>
+ * 同一公钥始终返回同一个{@link ECPublicKeyParameters}对象，BC保存在点对象上的预计算表也因此得以复用。<br>
+ * 此对象线程安全，见{@link cn.csfz.crypto.ECKeyUtil#setPublicKeyRegistry(SM2PublicKeyRegistry)}。
+ *
+ * @since 2.0.0
+ */
+public class SM2PublicKeyRegistry {
+
+	/**
+	 * 默认最多缓存的公钥数
+	 */
+	public static final int DEFAULT_MAX_SIZE = 1024;
+
+	private final Map<Key, ECPublicKeyParameters> cache;
+
+	private final AtomicLong hitCount = new AtomicLong();
+	private final AtomicLong missCount = new AtomicLong();
+
+	/**
+	 * 构造，使用默认大小
+	 */
+	public SM2PublicKeyRegistry() {
+		this(DEFAULT_MAX_SIZE);
+	}
+
+	/**
+	 * 构造
+	 *
+	 * @param maxSize 最多缓存的公钥数
+	 */
+	public SM2PublicKeyRegistry(final int maxSize) {
+		if (maxSize <= 0) {
+			throw new IllegalArgumentException("maxSize must be greater than 0 !");
+		}
+		this.cache = new LinkedHashMap<Key, ECPublicKeyParameters>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Key, ECPublicKeyParameters> eldest) {
+				return size() > maxSize;
+			}
+		};
+	}
+
+	/**
+	 * 获取已解码的公钥
+	 *
+	 * @param encoded 公钥编码
+	 * @param isPoint 是否按Q值（点编码）解码，否则为自动识别格式（Q值、X.509或PKCS#1）解码，二者分别缓存
+	 * @return 公钥参数，不存在返回{@code null}
+	 */
+	public ECPublicKeyParameters get(byte[] encoded, boolean isPoint) {
+		final ECPublicKeyParameters params;
+		synchronized (this.cache) {
+			params = this.cache.get(new Key(encoded, isPoint));
+		}
+		if (null != params) {
+			this.hitCount.incrementAndGet();
+		} else {
+			this.missCount.incrementAndGet();
+		}
+		return params;
+	}
+
+	/**
+	 * 放入已解码并校验过的公钥，已存在时返回已有的公钥
+	 *
+	 * @param encoded 公钥编码，内部复制保存
+	 * @param isPoint 是否按Q值（点编码）解码
+	 * @param params  公钥参数
+	 * @return 注册表中的公钥参数
+	 */
+	public ECPublicKeyParameters put(byte[] encoded, boolean isPoint, ECPublicKeyParameters params) {
+		final Key key = new Key(encoded.clone(), isPoint);
+		synchronized (this.cache) {
+			final ECPublicKeyParameters exists = this.cache.get(key);
+			if (null != exists) {
+				// 其它线程已放入
+				return exists;
+			}
+			this.cache.put(key, params);
+		}
+		return params;
+	}
+
+	/**
+	 * 清空注册表，计数不清零
+	 */
+	public void clear() {
+		synchronized (this.cache) {
+			this.cache.clear();
+		}
+	}
+
+	/**
+	 * 当前缓存的公钥数
+	 *
+	 * @return 公钥数
+	 */
+	public int size() {
+		synchronized (this.cache) {
+			return this.cache.size();
+		}
+	}
+
+	/**
+	 * 获取命中次数
+	 *
+	 * @return 命中次数
+	 */
+	public long getHitCount() {
+		return this.hitCount.get();
+	}
+
+	/**
+	 * 获取未命中（解码公钥）次数
+	 *
+	 * @return 未命中次数
+	 */
+	public long getMissCount() {
+		return this.missCount.get();
+	}
+
+	/**
+	 * 缓存键，公钥编码及其格式
+	 */
+	private static class Key {
+		private final byte[] encoded;
+		private final boolean isPoint;
+		private final int hash;
+
+		Key(byte[] encoded, boolean isPoint) {
+			this.encoded = encoded;
+			this.isPoint = isPoint;
+			this.hash = 31 * Arrays.hashCode(encoded) + (isPoint ? 1 : 0);
+		}
+
+		@Override
+		public int hashCode() {
+			return this.hash;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj) {
+				return true;
+			}
+			if (false == (obj instanceof Key)) {
+				return false;
+			}
+			final Key other = (Key) obj;
+			return this.isPoint == other.isPoint && Arrays.equals(this.encoded, other.encoded);
+		}
+	}
+}
@@ -0,0 +1,204 @@
+package cn.csfz.crypto.asymmetric.sm2;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * SM2密钥交换会话密钥缓存，按对端身份保存协商出的会话密钥（如SM4密钥），超过有效期或条目数限制后淘汰<br>
+ * 同一对端的后续消息直接使用缓存的会话密钥做对称加密，只在密钥过期后重新进行一次{@link SM2KeyAgreement}握手。
+ *
+ * <p>
+ * 被淘汰、过期或移除的会话密钥会被清零，{@link #get(String)}返回密钥的副本。<br>
+ * 此对象线程安全。
+ *
+ * @since 2.0.0
+ */
+public class SM2SessionKeyCache {
+
+	private final long ttlNanos;
+	private final Map<String, SessionKey> cache;
+
+	private final AtomicLong hitCount = new AtomicLong();
+	private final AtomicLong missCount = new AtomicLong();
+
+	/**
+	 * 构造
+	 *
+	 * @param maxSize 最多缓存的对端数
+	 * @param ttl     会话密钥有效期
+	 * @param unit    有效期单位
+	 */
+	public SM2SessionKeyCache(final int maxSize, long ttl, TimeUnit unit) {
+		if (maxSize <= 0) {
+			throw new IllegalArgumentException("maxSize must be greater than 0 !");
+		}
+		if (ttl <= 0) {
+			throw new IllegalArgumentException("ttl must be greater than 0 !");
+		}
+		this.ttlNanos = unit.toNanos(ttl);
+		this.cache = new LinkedHashMap<String, SessionKey>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, SessionKey> eldest) {
+				if (size() > maxSize) {
+					eldest.getValue().destroy();
+					return true;
+				}
+				return false;
+			}
+		};
+	}
+
+	/**
+	 * 放入会话密钥，已存在的旧密钥被清零替换
+	 *
+	 * @param peerId 对端身份
+	 * @param key    会话密钥，内部复制保存
+	 */
+	public void put(String peerId, byte[] key) {
+		final SessionKey entry = new SessionKey(key.clone(), System.nanoTime() + this.ttlNanos);
+		final SessionKey old;
+		synchronized (this.cache) {
+			old = this.cache.put(peerId, entry);
+		}
+		if (null != old) {
+			old.destroy();
+		}
+	}
+
+	/**
+	 * 获取对端的会话密钥
+	 *
+	 * @param peerId 对端身份
+	 * @return 会话密钥的副本，不存在或已过期返回{@code null}，此时需重新握手
+	 */
+	public byte[] get(String peerId) {
+		byte[] key = null;
+		SessionKey expired = null;
+		synchronized (this.cache) {
+			final SessionKey entry = this.cache.get(peerId);
+			if (null != entry) {
+				if (entry.isExpired(System.nanoTime())) {
+					this.cache.remove(peerId);
+					expired = entry;
+				} else {
+					key = entry.key.clone();
+				}
+			}
+		}
+		if (null != expired) {
+			expired.destroy();
+		}
+
+		if (null != key) {
+			this.hitCount.incrementAndGet();
+		} else {
+			this.missCount.incrementAndGet();
+		}
+		return key;
+	}
+
+	/**
+	 * 移除并清零对端的会话密钥
+	 *
+	 * @param peerId 对端身份
+	 */
+	public void remove(String peerId) {
+		final SessionKey entry;
+		synchronized (this.cache) {
+			entry = this.cache.remove(peerId);
+		}
+		if (null != entry) {
+			entry.destroy();
+		}
+	}
+
+	/**
+	 * 移除并清零所有已过期的会话密钥，可定时调用以及时释放过期密钥
+	 *
+	 * @return 移除的个数
+	 */
+	public int prune() {
+		final long now = System.nanoTime();
+		int count = 0;
+		synchronized (this.cache) {
+			final Iterator<SessionKey> iterator = this.cache.values().iterator();
+			while (iterator.hasNext()) {
+				final SessionKey entry = iterator.next();
+				if (entry.isExpired(now)) {
+					iterator.remove();
+					entry.destroy();
+					count++;
+				}
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * 清空并清零所有会话密钥，计数不清零
+	 */
+	public void clear() {
+		synchronized (this.cache) {
+			for (SessionKey entry : this.cache.values()) {
+				entry.destroy();
+			}
+			this.cache.clear();
+		}
+	}
+
+	/**
+	 * 当前缓存的会话密钥数（包括已过期但未移除的）
+	 *
+	 * @return 会话密钥数
+	 */
+	public int size() {
+		synchronized (this.cache) {
+			return this.cache.size();
+		}
+	}
+
+	/**
+	 * 命中次数
+	 *
+	 * @return 命中次数
+	 */
+	public long getHitCount() {
+		return this.hitCount.get();
+	}
+
+	/**
+	 * 未命中（不存在或已过期）次数
+	 *
+	 * @return 未命中次数
+	 */
+	public long getMissCount() {
+		return this.missCount.get();
+	}
+
+	/**
+	 * 缓存条目，会话密钥及其过期时间
+	 */
+	private static class SessionKey {
+		private final byte[] key;
+		private final long expireAt;
+
+		SessionKey(byte[] key, long expireAt) {
+			this.key = key;
+			this.expireAt = expireAt;
+		}
+
+		boolean isExpired(long now) {
+			return now - this.expireAt >= 0;
+		}
+
+		void destroy() {
+			Arrays.fill(this.key, (byte) 0);
+		}
+	}
+}
@@ -0,0 +1,459 @@
+package cn.csfz.crypto.asymmetric.sm2;
+
+import cn.csfz.core.io.IORuntimeException;
+import org.bouncycastle.crypto.CipherParameters;
+import org.bouncycastle.crypto.CryptoException;
+import org.bouncycastle.crypto.CryptoServicesRegistrar;
+import org.bouncycastle.crypto.Digest;
+import org.bouncycastle.crypto.Signer;
+import org.bouncycastle.crypto.params.ECDomainParameters;
+import org.bouncycastle.crypto.params.ECKeyParameters;
+import org.bouncycastle.crypto.params.ECPrivateKeyParameters;
+import org.bouncycastle.crypto.params.ECPublicKeyParameters;
+import org.bouncycastle.crypto.params.ParametersWithID;
+import org.bouncycastle.crypto.params.ParametersWithRandom;
+import org.bouncycastle.crypto.signers.DSAEncoding;
+import org.bouncycastle.crypto.signers.DSAKCalculator;
+import org.bouncycastle.crypto.signers.RandomDSAKCalculator;
+import org.bouncycastle.math.ec.ECAlgorithms;
+import org.bouncycastle.math.ec.ECConstants;
+import org.bouncycastle.math.ec.ECFieldElement;
+import org.bouncycastle.math.ec.ECPoint;
+import org.bouncycastle.util.BigIntegers;
+import org.bouncycastle.util.encoders.Hex;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.security.SecureRandom;
+
+/**
+ * SM2签名引擎，签名结果与BC的{@link org.bouncycastle.crypto.signers.SM2Signer}一致<br>
+ * 与BC实现相比：
+ * <ul>
+ *     <li>支持传入预先计算好的用户身份摘要Z值（Z_A），初始化时不再计算Z值，签名时也不再计算d·G</li>
+ *     <li>k·G使用{@link SM2FixedPointMultiplier}基点预计算表计算</li>
+ *     <li>可通过{@link #setNonceGenerator(SM2NonceGenerator)}使用预先计算好的随机数（如{@link SM2NoncePool}）</li>
+ *     <li>验签时默认使用{@link SM2MultiScalarMultiplier}计算s·G + t·Q，见{@link #setMultiScalarVerify(boolean)}</li>
+ *     <li>支持对预先计算好的摘要e = H(Z_A || M)签名和验签，见{@link #generateSignature(byte[])}和{@link #verifySignature(byte[], byte[])}</li>
+ * </ul>
+ *
+ * <p>
+ * 此对象非线程安全。
+ *
+ * @since 2.0.0
+ */
+public class SM2SignEngine implements Signer, ECConstants {
+
+	/**
+	 * 默认用户ID，即"1234567812345678"
+	 */
+	public static final byte[] DEFAULT_USER_ID = Hex.decodeStrict("31323334353637383132333435363738");
+
+	/**
+	 * 流式读取时的缓存大小
+	 */
+	private static final int BUFFER_SIZE = 8192;
+	/**
+	 * 签名时最多尝试的随机数个数，正常的随机数需要重试的概率约为2^-255，多次失败说明随机数生成器有误
+	 */
+	private static final int MAX_NONCE_ATTEMPTS = 16;
+	/**
+	 * 文件每次映射到内存的最大长度
+	 */
+	private static final long MAP_SIZE = 64 * 1024 * 1024;
+
+	private final DSAKCalculator kCalculator = new RandomDSAKCalculator();
+	private final Digest digest;
+	private final DSAEncoding encoding;
+
+	private ECDomainParameters ecParams;
+	private ECPoint pubPoint;
+	private ECKeyParameters ecKey;
+	private byte[] z;
+	private SM2NonceGenerator nonceGenerator;
+	private boolean kCalculatorReady;
+	private boolean multiScalarVerify = true;
+
+	/**
+	 * 构造
+	 *
+	 * @param encoding 签名编码
+	 * @param digest   摘要，一般为SM3
+	 */
+	public SM2SignEngine(DSAEncoding encoding, Digest digest) {
+		this.encoding = encoding;
+		this.digest = digest;
+	}
+
+	/**
+	 * 获取摘要对象
+	 *
+	 * @return 摘要对象
+	 */
+	public Digest getDigest() {
+		return this.digest;
+	}
+
+	/**
+	 * 设置签名随机数生成器
+	 *
+	 * @param nonceGenerator {@link SM2NonceGenerator}，{@code null}表示使用随机数并即时计算k·G
+	 * @return this
+	 */
+	public SM2SignEngine setNonceGenerator(SM2NonceGenerator nonceGenerator) {
+		this.nonceGenerator = nonceGenerator;
+		return this;
+	}
+
+	/**
+	 * 设置验签时是否使用{@link SM2MultiScalarMultiplier}计算s·G + t·Q
+	 *
+	 * @param multiScalarVerify {@code true}使用宽窗口基点表的交错wNAF（默认），{@code false}使用BC的{@link ECAlgorithms}
+	 * @return this
+	 */
+	public SM2SignEngine setMultiScalarVerify(boolean multiScalarVerify) {
+		this.multiScalarVerify = multiScalarVerify;
+		return this;
+	}
+
+	@Override
+	public void init(boolean forSigning, CipherParameters param) {
+		init(forSigning, param, null);
+	}
+
+	/**
+	 * 初始化，使用预先计算好的Z值
+	 *
+	 * @param forSigning 是否为签名，false表示验签
+	 * @param param      私钥或公钥参数，可以为{@link ParametersWithRandom}或{@link ParametersWithID}
+	 * @param z          用户身份摘要Z值，见{@link #calculateZ(Digest, ECDomainParameters, ECPoint, byte[])}，
+	 *                   {@code null}表示根据参数中的ID（无ID时使用默认ID）计算；
+	 *                   只对摘要签名或验签时可传入空数组，此时不计算Z值
+	 */
+	public void init(boolean forSigning, CipherParameters param, byte[] z) {
+		final CipherParameters baseParam;
+		final byte[] userID;
+		if (param instanceof ParametersWithID) {
+			baseParam = ((ParametersWithID) param).getParameters();
+			userID = ((ParametersWithID) param).getID();
+			checkUserID(userID);
+		} else {
+			baseParam = param;
+			userID = DEFAULT_USER_ID;
+		}
+
+		if (forSigning) {
+			final ECPrivateKeyParameters privateKey;
+			SecureRandom random = null;
+			if (baseParam instanceof ParametersWithRandom) {
+				privateKey = (ECPrivateKeyParameters) ((ParametersWithRandom) baseParam).getParameters();
+				random = ((ParametersWithRandom) baseParam).getRandom();
+			} else {
+				privateKey = (ECPrivateKeyParameters) baseParam;
+			}
+			this.ecKey = privateKey;
+			this.ecParams = privateKey.getParameters();
+			// 使用随机数生成器时不需要SecureRandom，延迟到实际使用时再获取默认随机数
+			this.kCalculatorReady = false;
+			if (null != random) {
+				this.kCalculator.init(this.ecParams.getN(), random);
+				this.kCalculatorReady = true;
+			}
+			// 签名时公钥只用于计算Z值，已给出Z值时无需计算
+			this.pubPoint = (null == z) ? SM2FixedPointMultiplier.INSTANCE.multiply(this.ecParams.getG(), privateKey.getD()).normalize() : null;
+		} else {
+			this.ecKey = (ECPublicKeyParameters) baseParam;
+			this.ecParams = this.ecKey.getParameters();
+			this.pubPoint = ((ECPublicKeyParameters) baseParam).getQ();
+		}
+
+		this.z = (null == z) ? calculateZ(this.digest, this.ecParams, this.pubPoint, userID) : z;
+		this.digest.reset();
+		this.digest.update(this.z, 0, this.z.length);
+	}
+
+	@Override
+	public void update(byte b) {
+		this.digest.update(b);
+	}
+
+	@Override
+	public void update(byte[] in, int off, int len) {
+		this.digest.update(in, off, len);
+	}
+
+	/**
+	 * 分块读取流中的数据并更新摘要，流不会被关闭
+	 *
+	 * @param in 数据流
+	 * @throws IORuntimeException IO异常
+	 */
+	public void update(InputStream in) throws IORuntimeException {
+		final byte[] buffer = new byte[BUFFER_SIZE];
+		int len;
+		try {
+			while ((len = in.read(buffer)) > -1) {
+				this.digest.update(buffer, 0, len);
+			}
+		} catch (IOException e) {
+			throw new IORuntimeException(e);
+		}
+	}
+
+	/**
+	 * 使用{@link ByteBuffer}中position到limit之间的数据更新摘要，完成后position等于limit
+	 *
+	 * @param buffer 数据
+	 */
+	public void update(ByteBuffer buffer) {
+		if (buffer.hasArray()) {
+			final int len = buffer.remaining();
+			this.digest.update(buffer.array(), buffer.arrayOffset() + buffer.position(), len);
+			buffer.position(buffer.position() + len);
+			return;
+		}
+
+		// 堆外内存（如文件映射）分块复制后更新
+		final byte[] chunk = new byte[Math.min(BUFFER_SIZE, buffer.remaining())];
+		while (buffer.hasRemaining()) {
+			final int len = Math.min(chunk.length, buffer.remaining());
+			buffer.get(chunk, 0, len);
+			this.digest.update(chunk, 0, len);
+		}
+	}
+
+	/**
+	 * 将文件分段映射到内存后更新摘要，通道不会被关闭
+	 *
+	 * @param channel 文件通道
+	 * @throws IORuntimeException IO异常
+	 */
+	public void update(FileChannel channel) throws IORuntimeException {
+		try {
+			final long size = channel.size();
+			for (long position = 0; position < size; position += MAP_SIZE) {
+				update(channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(MAP_SIZE, size - position)));
+			}
+		} catch (IOException e) {
+			throw new IORuntimeException(e);
+		}
+	}
+
+	@Override
+	public boolean verifySignature(byte[] signature) {
+		try {
+			final BigInteger[] rs = this.encoding.decode(this.ecParams.getN(), signature);
+			return verifySignature(null, rs[0], rs[1]);
+		} catch (Exception e) {
+			// 签名格式错误，验签失败
+		}
+		return false;
+	}
+
+	@Override
+	public void reset() {
+		this.digest.reset();
+		if (null != this.z) {
+			this.digest.update(this.z, 0, this.z.length);
+		}
+	}
+
+	/**
+	 * 验证预先计算好的摘要e的签名，不使用和改变当前摘要状态
+	 *
+	 * @param eHash     摘要e = H(Z_A || M)，见{@link #calculateE(Digest, byte[], byte[])}
+	 * @param signature 签名
+	 * @return 是否通过
+	 */
+	public boolean verifySignature(byte[] eHash, byte[] signature) {
+		try {
+			final BigInteger[] rs = this.encoding.decode(this.ecParams.getN(), signature);
+			return verifySignature(eHash, rs[0], rs[1]);
+		} catch (Exception e) {
+			// 签名格式错误，验签失败
+		}
+		return false;
+	}
+
+	@Override
+	public byte[] generateSignature() throws CryptoException {
+		return generateSignature(digestDoFinal());
+	}
+
+	/**
+	 * 对预先计算好的摘要e签名，不使用和改变当前摘要状态
+	 *
+	 * @param eHash 摘要e = H(Z_A || M)，见{@link #calculateE(Digest, byte[], byte[])}
+	 * @return 签名
+	 * @throws CryptoException 签名编码失败，或随机数生成器连续返回无效的随机数
+	 */
+	public byte[] generateSignature(byte[] eHash) throws CryptoException {
+		final BigInteger n = this.ecParams.getN();
+		final BigInteger e = new BigInteger(1, eHash);
+		final BigInteger d = ((ECPrivateKeyParameters) this.ecKey).getD();
+
+		BigInteger r, s;
+		int attempts = 0;
+		do {
+			BigInteger k;
+			do {
+				if (++attempts > MAX_NONCE_ATTEMPTS) {
+					throw new CryptoException("unable to generate signature: no valid nonce after " + MAX_NONCE_ATTEMPTS + " attempts");
+				}
+				if (null != this.nonceGenerator) {
+					final SM2Nonce nonce = this.nonceGenerator.generate((ECPrivateKeyParameters) this.ecKey, eHash);
+					k = nonce.getK();
+					r = e.add(nonce.getX1()).mod(n);
+				} else {
+					if (false == this.kCalculatorReady) {
+						this.kCalculator.init(n, CryptoServicesRegistrar.getSecureRandom());
+						this.kCalculatorReady = true;
+					}
+					k = this.kCalculator.nextK();
+					final ECPoint p = SM2FixedPointMultiplier.INSTANCE.multiply(this.ecParams.getG(), k).normalize();
+					r = e.add(p.getAffineXCoord().toBigInteger()).mod(n);
+				}
+			} while (r.equals(ZERO) || r.add(k).equals(n));
+
+			// s = (1 + d)^-1 * (k - r * d) mod n
+			final BigInteger dPlus1ModN = BigIntegers.modOddInverse(n, d.add(ONE));
+			s = k.subtract(r.multiply(d)).mod(n);
+			s = dPlus1ModN.multiply(s).mod(n);
+		} while (s.equals(ZERO));
+
+		try {
+			return this.encoding.encode(n, r, s);
+		} catch (Exception ex) {
+			throw new CryptoException("unable to encode signature: " + ex.getMessage(), ex);
+		}
+	}
+
+	/**
+	 * 计算用户身份摘要Z值：Z = H(ENTL || ID || a || b || xG || yG || xA || yA)
+	 *
+	 * @param digest   摘要，计算前会被重置
+	 * @param ecParams 曲线参数
+	 * @param pubPoint 公钥点
+	 * @param userID   用户ID，{@code null}表示使用默认ID
+	 * @return Z值
+	 */
+	public static byte[] calculateZ(Digest digest, ECDomainParameters ecParams, ECPoint pubPoint, byte[] userID) {
+		if (null == userID) {
+			userID = DEFAULT_USER_ID;
+		}
+		checkUserID(userID);
+
+		digest.reset();
+		final int len = userID.length * 8;
+		digest.update((byte) (len >> 8 & 0xFF));
+		digest.update((byte) (len & 0xFF));
+		digest.update(userID, 0, userID.length);
+
+		addFieldElement(digest, ecParams.getCurve().getA());
+		addFieldElement(digest, ecParams.getCurve().getB());
+		addFieldElement(digest, ecParams.getG().getAffineXCoord());
+		addFieldElement(digest, ecParams.getG().getAffineYCoord());
+		final ECPoint q = pubPoint.normalize();
+		addFieldElement(digest, q.getAffineXCoord());
+		addFieldElement(digest, q.getAffineYCoord());
+
+		final byte[] result = new byte[digest.getDigestSize()];
+		digest.doFinal(result, 0);
+		return result;
+	}
+
+	/**
+	 * 计算待签名摘要：e = H(Z_A || M)<br>
+	 * 摘要可在签名方之外（如数据所在节点）计算，签名方只需对e签名。
+	 *
+	 * @param digest 摘要，计算前会被重置
+	 * @param z      用户身份摘要Z值
+	 * @param data   数据
+	 * @return 摘要e
+	 */
+	public static byte[] calculateE(Digest digest, byte[] z, byte[] data) {
+		digest.reset();
+		digest.update(z, 0, z.length);
+		digest.update(data, 0, data.length);
+		final byte[] result = new byte[digest.getDigestSize()];
+		digest.doFinal(result, 0);
+		return result;
+	}
+
+	// ------------------------------------------------------------------------------------------------------------------------- Private method start
+
+	/**
+	 * 验签
+	 *
+	 * @param eHash 摘要e，{@code null}表示由当前摘要状态计算
+	 * @param r     r值
+	 * @param s     s值
+	 * @return 是否通过
+	 */
+	private boolean verifySignature(byte[] eHash, BigInteger r, BigInteger s) {
+		final BigInteger n = this.ecParams.getN();
+
+		// 5.3.1 Draft RFC:  SM2 Public Key Algorithms
+		// B1
+		if (r.compareTo(ONE) < 0 || r.compareTo(n) >= 0) {
+			return false;
+		}
+		// B2
+		if (s.compareTo(ONE) < 0 || s.compareTo(n) >= 0) {
+			return false;
+		}
+
+		// B3、B4
+		final BigInteger e = new BigInteger(1, (null == eHash) ? digestDoFinal() : eHash);
+
+		// B5
+		final BigInteger t = r.add(s).mod(n);
+		if (t.equals(ZERO)) {
+			return false;
+		}
+
+		// B6
+		final ECPoint x1y1 = (this.multiScalarVerify
+				? SM2MultiScalarMultiplier.INSTANCE.sumOfTwoMultiplies(this.ecParams.getG(), s, this.pubPoint, t)
+				: ECAlgorithms.sumOfTwoMultiplies(this.ecParams.getG(), s, this.pubPoint, t)).normalize();
+		if (x1y1.isInfinity()) {
+			return false;
+		}
+
+		// B7
+		final BigInteger expectedR = e.add(x1y1.getAffineXCoord().toBigInteger()).mod(n);
+		return expectedR.equals(r);
+	}
+
+	/**
+	 * 完成摘要计算，并重置为只包含Z值的状态
+	 *
+	 * @return 摘要值
+	 */
+	private byte[] digestDoFinal() {
+		final byte[] result = new byte[this.digest.getDigestSize()];
+		this.digest.doFinal(result, 0);
+		reset();
+		return result;
+	}
+
+	/**
+	 * 检查用户ID长度，ENTL为2字节，ID最多2^16位
+	 *
+	 * @param userID 用户ID
+	 */
+	private static void checkUserID(byte[] userID) {
+		if (userID.length >= 8192) {
+			throw new IllegalArgumentException("SM2 user ID must be less than 2^16 bits long");
+		}
+	}
+
+	private static void addFieldElement(Digest digest, ECFieldElement v) {
+		final byte[] p = v.getEncoded();
+		digest.update(p, 0, p.length);
+	}
+	// ------------------------------------------------------------------------------------------------------------------------- Private method end
+}
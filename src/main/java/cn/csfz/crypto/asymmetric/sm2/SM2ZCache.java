@@ -0,0 +1,153 @@
+package cn.csfz.crypto.asymmetric.sm2;
+
+import org.bouncycastle.crypto.Digest;
+import org.bouncycastle.crypto.params.ECPublicKeyParameters;
+import org.bouncycastle.math.ec.ECPoint;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * SM2用户身份摘要Z值（Z_A）缓存（LRU）<br>
+ * Z值是对曲线参数、公钥和用户ID的SM3摘要，同一公钥和ID的Z值固定不变。
+ * 每次签名和验签都重新计算Z值，对短消息而言几乎占了一半的摘要计算量，使用此缓存后相同身份的签名验签不再计算Z值。
+ *
+ * <p>
+ * 此对象线程安全，可在多个{@link cn.csfz.crypto.asymmetric.SM2}对象之间共享，
+ * 见{@link cn.csfz.crypto.asymmetric.SM2#setZCache(SM2ZCache)}。
+ *
+ * @since 2.0.0
+ */
+public class SM2ZCache {
+
+	private final Map<ZKey, byte[]> cache;
+
+	private final AtomicLong hitCount = new AtomicLong();
+	private final AtomicLong missCount = new AtomicLong();
+
+	/**
+	 * 构造
+	 *
+	 * @param maxSize 最多缓存的（公钥，ID）数
+	 */
+	public SM2ZCache(final int maxSize) {
+		if (maxSize <= 0) {
+			throw new IllegalArgumentException("maxSize must be greater than 0 !");
+		}
+		this.cache = new LinkedHashMap<ZKey, byte[]>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<ZKey, byte[]> eldest) {
+				return size() > maxSize;
+			}
+		};
+	}
+
+	/**
+	 * 获取Z值，不存在时计算并缓存
+	 *
+	 * @param publicKeyParams 公钥参数
+	 * @param userID          用户ID，{@code null}表示默认ID
+	 * @param digest          摘要对象，仅在未命中时用于计算Z值，调用期间不能被其它线程使用
+	 * @return Z值的副本，修改不影响缓存
+	 */
+	public byte[] get(ECPublicKeyParameters publicKeyParams, byte[] userID, Digest digest) {
+		if (null == userID) {
+			userID = SM2SignEngine.DEFAULT_USER_ID;
+		}
+		final ZKey key = new ZKey(publicKeyParams.getQ(), userID, digest.getAlgorithmName());
+		byte[] z;
+		synchronized (this.cache) {
+			z = this.cache.get(key);
+		}
+		if (null != z) {
+			hitCount.incrementAndGet();
+			return z.clone();
+		}
+		missCount.incrementAndGet();
+
+		z = SM2SignEngine.calculateZ(digest, publicKeyParams.getParameters(), publicKeyParams.getQ(), userID);
+		synchronized (this.cache) {
+			// 复制ID，防止调用者修改
+			this.cache.put(new ZKey(key.q, userID.clone(), key.digestName), z);
+		}
+		return z.clone();
+	}
+
+	/**
+	 * 清空缓存，计数不清零
+	 */
+	public void clear() {
+		synchronized (this.cache) {
+			this.cache.clear();
+		}
+	}
+
+	/**
+	 * 当前缓存的Z值数
+	 *
+	 * @return Z值数
+	 */
+	public int size() {
+		synchronized (this.cache) {
+			return this.cache.size();
+		}
+	}
+
+	/**
+	 * 命中次数
+	 *
+	 * @return 命中次数
+	 */
+	public long getHitCount() {
+		return hitCount.get();
+	}
+
+	/**
+	 * 未命中次数
+	 *
+	 * @return 未命中次数
+	 */
+	public long getMissCount() {
+		return missCount.get();
+	}
+
+	/**
+	 * 缓存键，由公钥点、用户ID和摘要算法组成
+	 */
+	private static class ZKey {
+		private final ECPoint q;
+		private final byte[] userID;
+		private final String digestName;
+		private final int hashCode;
+
+		ZKey(ECPoint q, byte[] userID, String digestName) {
+			this.q = q;
+			this.userID = userID;
+			this.digestName = digestName;
+			this.hashCode = (q.hashCode() * 31 + Arrays.hashCode(userID)) * 31 + digestName.hashCode();
+		}
+
+		@Override
+		public int hashCode() {
+			return this.hashCode;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj) {
+				return true;
+			}
+			if (false == obj instanceof ZKey) {
+				return false;
+			}
+			final ZKey other = (ZKey) obj;
+			return this.digestName.equals(other.digestName)
+					&& Arrays.equals(this.userID, other.userID)
+					&& this.q.equals(other.q);
+		}
+	}
+}
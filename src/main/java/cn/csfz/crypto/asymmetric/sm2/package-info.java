@@ -0,0 +1,6 @@
+/**
+ * 国密SM2算法的性能优化相关实现，包括预计算表、缓存和批量处理等，供{@link cn.csfz.crypto.asymmetric.SM2}使用
+ *
+ * @since 2.0.0
+ */
+package cn.csfz.crypto.asymmetric.sm2;
@@ -0,0 +1,501 @@
+package cn.csfz.crypto.symmetric;
+
+import cn.csfz.core.io.IORuntimeException;
+import cn.csfz.crypto.CipherPool;
+import cn.csfz.crypto.CipherWrapper;
+import cn.csfz.crypto.CryptoException;
+import cn.csfz.crypto.Padding;
+
+import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.IvParameterSpec;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.security.spec.AlgorithmParameterSpec;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * CBC模式并行解密，适用于SM4、AES、DESede等分组密码<br>
+ * CBC解密时每个明文分组只依赖当前和前一个密文分组：P_i = D(C_i) ⊕ C_{i-1}。
+ * 密文按分组对齐切分为多段，每段以前一段的最后一个密文分组（第一段为IV）作为IV，使用NoPadding独立解密，
+ * 各段在{@link ForkJoinPool}中并行处理，全部完成后再去除末尾的填充，结果与顺序解密完全相同。
+ *
+ * <p>
+ * 支持PKCS5Padding（PKCS7Padding）、ISO10126Padding、ZeroPadding和NoPadding。
+ * 数据可以是数组、{@link ByteBuffer}（包括{@link java.nio.MappedByteBuffer}）或文件通道。
+ *
+ * <pre>
+ * SM4 sm4 = new SM4(Mode.CBC, Padding.PKCS5Padding, key, iv);
+ * byte[] data = new ParallelCBCDecryptor(sm4).decrypt(encrypted);
+ * </pre>
+ *
+ * <p>
+ * 此对象线程安全。
+ *
+ * @since 2.0.0
+ */
+public class ParallelCBCDecryptor {
+
+	/**
+	 * 默认每段长度（字节）
+	 */
+	public static final int DEFAULT_SEGMENT_SIZE = 1024 * 1024;
+
+	private final SecretKey key;
+	private final byte[] iv;
+	private final Padding padding;
+	private final int blockSize;
+	private final CipherPool cipherPool;
+
+	private ForkJoinPool pool = ForkJoinPool.commonPool();
+	private int segmentSize = DEFAULT_SEGMENT_SIZE;
+
+	/**
+	 * 构造，使用{@link SymmetricCrypto}的算法、密钥、IV和填充方式
+	 *
+	 * @param crypto {@link SymmetricCrypto}，须为CBC模式，并设置了IV
+	 */
+	public ParallelCBCDecryptor(SymmetricCrypto crypto) {
+		this(crypto.isZeroPadding()
+						? crypto.getCipher().getAlgorithm().replace(Padding.NoPadding.name(), Padding.ZeroPadding.name())
+						: crypto.getCipher().getAlgorithm(),
+				crypto.getSecretKey(), getIv(crypto.getParams()));
+	}
+
+	/**
+	 * 构造
+	 *
+	 * @param algorithm 算法，如"SM4/CBC/PKCS5Padding"
+	 * @param key       密钥
+	 * @param iv        IV，长度须与分组长度相同
+	 */
+	public ParallelCBCDecryptor(String algorithm, SecretKey key, byte[] iv) {
+		final String[] parts = algorithm.split("/");
+		if (parts.length != 3 || false == "CBC".equalsIgnoreCase(parts[1])) {
+			throw new IllegalArgumentException("Only CBC mode is supported, but got: " + algorithm);
+		}
+		this.padding = parsePadding(parts[2]);
+		this.key = key;
+		this.cipherPool = new CipherPool(parts[0] + "/CBC/" + Padding.NoPadding.name(), null, null, CipherPool.DEFAULT_MAX_IDLE);
+		final CipherWrapper wrapper = this.cipherPool.borrow();
+		this.blockSize = wrapper.getCipher().getBlockSize();
+		this.cipherPool.release(wrapper);
+		if (null == iv || iv.length != this.blockSize) {
+			throw new IllegalArgumentException("IV length must be " + this.blockSize + " !");
+		}
+		this.iv = iv.clone();
+	}
+
+	/**
+	 * 设置并行计算使用的{@link ForkJoinPool}，默认为{@link ForkJoinPool#commonPool()}
+	 *
+	 * @param pool {@link ForkJoinPool}
+	 * @return this
+	 */
+	public ParallelCBCDecryptor setPool(ForkJoinPool pool) {
+		this.pool = pool;
+		return this;
+	}
+
+	/**
+	 * 设置每段长度，会向下对齐到分组长度，数据不超过一段时在当前线程处理
+	 *
+	 * @param segmentSize 每段长度（字节）
+	 * @return this
+	 */
+	public ParallelCBCDecryptor setSegmentSize(int segmentSize) {
+		if (segmentSize < this.blockSize) {
+			throw new IllegalArgumentException("Segment size must be at least " + this.blockSize + " !");
+		}
+		this.segmentSize = segmentSize - segmentSize % this.blockSize;
+		return this;
+	}
+
+	/**
+	 * 解密
+	 *
+	 * @param data 密文
+	 * @return 明文
+	 * @throws CryptoException 密文长度不是分组长度的整数倍或填充错误
+	 */
+	public byte[] decrypt(byte[] data) throws CryptoException {
+		final byte[] out = new byte[data.length];
+		final int len = decrypt(data, 0, data.length, out, 0);
+		if (len == out.length) {
+			return out;
+		}
+		final byte[] result = new byte[len];
+		System.arraycopy(out, 0, result, 0, len);
+		return result;
+	}
+
+	/**
+	 * 解密，结果写入调用方提供的数组，输出空间须不小于密文长度（填充部分也会写入），输入和输出可以是同一数组的同一位置
+	 *
+	 * @param in     密文
+	 * @param inOff  密文偏移
+	 * @param len    密文长度
+	 * @param out    输出
+	 * @param outOff 输出偏移
+	 * @return 明文长度
+	 * @throws CryptoException 密文长度不是分组长度的整数倍或填充错误
+	 */
+	public int decrypt(byte[] in, int inOff, int len, byte[] out, int outOff) throws CryptoException {
+		final ByteBuffer outBuffer = ByteBuffer.wrap(out, outOff, out.length - outOff);
+		decrypt(ByteBuffer.wrap(in, inOff, len), outBuffer);
+		return outBuffer.position() - outOff;
+	}
+
+	/**
+	 * 解密{@link ByteBuffer}，可以是文件映射的{@link java.nio.MappedByteBuffer}<br>
+	 * 读取in中position到limit之间的密文，明文写入out的position处，两者的position均前移，out的position前移明文长度。
+	 * out的剩余空间须不小于密文长度（填充部分也会写入），in和out可以是同一缓冲区的同一位置。
+	 *
+	 * @param in  密文
+	 * @param out 输出
+	 * @return 明文长度
+	 * @throws CryptoException 密文长度不是分组长度的整数倍或填充错误
+	 */
+	public int decrypt(ByteBuffer in, ByteBuffer out) throws CryptoException {
+		final int len = in.remaining();
+		checkLength(len);
+		if (out.remaining() < len) {
+			throw new IllegalArgumentException("Output buffer is too small !");
+		}
+		final int inStart = in.position();
+		final int outStart = out.position();
+
+		final int segments = Math.max(1, (int) ((len + (long) this.segmentSize - 1) / this.segmentSize));
+		// 原地解密时前一段的密文会被覆盖，先取出各段的IV
+		final byte[][] ivs = new byte[segments][];
+		ivs[0] = this.iv;
+		for (int i = 1; i < segments; i++) {
+			ivs[i] = new byte[this.blockSize];
+			final ByteBuffer ivBuffer = in.duplicate();
+			ivBuffer.position(inStart + i * this.segmentSize - this.blockSize);
+			ivBuffer.get(ivs[i]);
+		}
+
+		if (segments <= 1) {
+			decryptSegment(in, out, inStart, outStart, len, 0, ivs);
+		} else {
+			this.pool.invoke(new BufferTask(in, out, inStart, outStart, len, ivs, 0, segments));
+		}
+
+		final int plainLen = len - paddingLength(out, outStart, len);
+		in.position(inStart + len);
+		out.position(outStart + plainLen);
+		return plainLen;
+	}
+
+	/**
+	 * 解密文件，从输入的起始位置读取全部密文，明文写入输出的相同位置，完成后输出被截断为明文长度<br>
+	 * 各段使用按位置读写，不改变通道的当前位置，通道不会被关闭。输入和输出须为不同的文件。
+	 * 填充在各段解密时于内存中计算，输出通道只需可写，如{@code new FileOutputStream(file).getChannel()}。
+	 *
+	 * @param in  输入文件通道
+	 * @param out 输出文件通道
+	 * @return 明文长度
+	 * @throws IORuntimeException IO异常
+	 * @throws CryptoException    密文长度不是分组长度的整数倍或填充错误
+	 */
+	public long decrypt(FileChannel in, FileChannel out) throws IORuntimeException, CryptoException {
+		if (in == out) {
+			throw new IllegalArgumentException("Input and output must be different channels !");
+		}
+		try {
+			final long size = in.size();
+			checkLength(size);
+			final long segments = (size + this.segmentSize - 1) / this.segmentSize;
+			// ZeroPadding时为各段中最后一个非0字节之后的位置的最大值，其它填充由最后一段设置
+			final AtomicLong plainLen = new AtomicLong(Padding.ZeroPadding == this.padding ? 0 : size);
+			if (segments <= 1) {
+				decryptSegment(in, out, 0, size, size, plainLen);
+			} else {
+				this.pool.invoke(new FileTask(in, out, size, plainLen, 0, segments));
+			}
+
+			out.truncate(plainLen.get());
+			return plainLen.get();
+		} catch (IOException e) {
+			throw new IORuntimeException(e);
+		}
+	}
+
+	/**
+	 * 解密缓冲区中的一段
+	 *
+	 * @param in       密文缓冲区
+	 * @param out      输出缓冲区
+	 * @param inStart  密文起始位置
+	 * @param outStart 输出起始位置
+	 * @param len      密文总长度
+	 * @param index    段序号
+	 * @param ivs      各段的IV
+	 */
+	private void decryptSegment(ByteBuffer in, ByteBuffer out, int inStart, int outStart, int len, int index, byte[][] ivs) {
+		final int offset = index * this.segmentSize;
+		final int segmentLen = Math.min(this.segmentSize, len - offset);
+		final ByteBuffer input = in.duplicate();
+		input.limit(inStart + offset + segmentLen).position(inStart + offset);
+		final ByteBuffer output = out.duplicate();
+		output.limit(outStart + offset + segmentLen).position(outStart + offset);
+
+		final CipherWrapper wrapper = this.cipherPool.borrow();
+		try {
+			final Cipher cipher = wrapper.getCipher();
+			cipher.init(Cipher.DECRYPT_MODE, this.key, new IvParameterSpec(ivs[index]));
+			cipher.doFinal(input, output);
+		} catch (Exception e) {
+			throw new CryptoException(e);
+		} finally {
+			this.cipherPool.release(wrapper);
+		}
+	}
+
+	/**
+	 * 解密文件中的一段，连同前一个密文分组（作为IV）一起读取
+	 *
+	 * @param in       输入文件通道
+	 * @param out      输出文件通道
+	 * @param position 此段在文件中的位置，须为分组长度的整数倍
+	 * @param len      长度
+	 * @param size     密文总长度
+	 * @param plainLen 明文长度，根据此段的填充更新
+	 * @throws IOException IO异常
+	 */
+	private void decryptSegment(FileChannel in, FileChannel out, long position, long len, long size, AtomicLong plainLen) throws IOException {
+		final int ivLen = (0 == position) ? 0 : this.blockSize;
+		final ByteBuffer buffer = ByteBuffer.allocate((int) len + ivLen);
+		read(in, buffer, position - ivLen);
+		final byte[] data = buffer.array();
+		final byte[] segmentIv = new byte[this.blockSize];
+		System.arraycopy((0 == ivLen) ? this.iv : data, 0, segmentIv, 0, this.blockSize);
+
+		final CipherWrapper wrapper = this.cipherPool.borrow();
+		try {
+			final Cipher cipher = wrapper.getCipher();
+			cipher.init(Cipher.DECRYPT_MODE, this.key, new IvParameterSpec(segmentIv));
+			cipher.doFinal(data, ivLen, (int) len, data, 0);
+		} catch (Exception e) {
+			throw new CryptoException(e);
+		} finally {
+			this.cipherPool.release(wrapper);
+		}
+
+		if (Padding.ZeroPadding == this.padding) {
+			final int zeros = paddingLength(ByteBuffer.wrap(data), 0, (int) len);
+			if (zeros < len) {
+				// 全为0的段不影响明文长度
+				max(plainLen, position + len - zeros);
+			}
+		} else if (position + len == size && Padding.NoPadding != this.padding) {
+			// 填充只在最后一个分组中，写出前校验
+			plainLen.set(size - paddingLength(ByteBuffer.wrap(data), (int) len - this.blockSize, this.blockSize));
+		}
+
+		final ByteBuffer writeBuffer = ByteBuffer.wrap(data, 0, (int) len);
+		while (writeBuffer.hasRemaining()) {
+			out.write(writeBuffer, position + writeBuffer.position());
+		}
+	}
+
+	/**
+	 * 计算明文末尾的填充长度
+	 *
+	 * @param plain 明文缓冲区
+	 * @param start 明文起始位置
+	 * @param len   明文长度（含填充）
+	 * @return 填充长度
+	 * @throws CryptoException 填充错误
+	 */
+	private int paddingLength(ByteBuffer plain, int start, int len) throws CryptoException {
+		if (0 == len) {
+			return 0;
+		}
+		final int end = start + len;
+		switch (this.padding) {
+			case PKCS5Padding:
+			case ISO10126Padding:
+				final int padLen = plain.get(end - 1) & 0xff;
+				if (padLen < 1 || padLen > this.blockSize || padLen > len) {
+					throw new CryptoException("Invalid padding length: {}", padLen);
+				}
+				if (Padding.PKCS5Padding == this.padding) {
+					for (int i = end - padLen; i < end - 1; i++) {
+						if ((plain.get(i) & 0xff) != padLen) {
+							throw new CryptoException("Invalid PKCS5 padding !");
+						}
+					}
+				}
+				return padLen;
+			case ZeroPadding:
+				// 与SymmetricCrypto一致，去掉末尾所有的0
+				int i = end - 1;
+				while (i >= start && 0 == plain.get(i)) {
+					i--;
+				}
+				return end - 1 - i;
+			default:
+				return 0;
+		}
+	}
+
+	/**
+	 * 将value更新为其与x的较大值
+	 *
+	 * @param value 值
+	 * @param x     候选值
+	 */
+	private static void max(AtomicLong value, long x) {
+		long current;
+		while ((current = value.get()) < x) {
+			if (value.compareAndSet(current, x)) {
+				return;
+			}
+		}
+	}
+
+	/**
+	 * 检查密文长度
+	 *
+	 * @param len 密文长度
+	 * @throws CryptoException 长度不是分组长度的整数倍，或有填充时为0
+	 */
+	private void checkLength(long len) throws CryptoException {
+		if (len % this.blockSize != 0) {
+			throw new CryptoException("Input length {} is not multiple of block size {} !", len, this.blockSize);
+		}
+		if (0 == len && (Padding.PKCS5Padding == this.padding || Padding.ISO10126Padding == this.padding)) {
+			throw new CryptoException("Input is empty but padding is required !");
+		}
+	}
+
+	/**
+	 * 从指定位置读满缓冲区
+	 *
+	 * @param channel  文件通道
+	 * @param buffer   缓冲区
+	 * @param position 位置
+	 * @throws IOException IO异常或文件提前结束
+	 */
+	private static void read(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+		final int start = buffer.position();
+		while (buffer.hasRemaining()) {
+			if (channel.read(buffer, position + buffer.position() - start) < 0) {
+				throw new IOException("Unexpected end of file at " + (position + buffer.position() - start));
+			}
+		}
+	}
+
+	/**
+	 * 解析填充方式，PKCS7Padding等同于PKCS5Padding
+	 *
+	 * @param name 填充方式名称
+	 * @return {@link Padding}
+	 */
+	private static Padding parsePadding(String name) {
+		if ("PKCS7Padding".equalsIgnoreCase(name)) {
+			return Padding.PKCS5Padding;
+		}
+		for (Padding padding : new Padding[]{Padding.NoPadding, Padding.ZeroPadding, Padding.PKCS5Padding, Padding.ISO10126Padding}) {
+			if (padding.name().equalsIgnoreCase(name)) {
+				return padding;
+			}
+		}
+		throw new IllegalArgumentException("Unsupported padding: " + name);
+	}
+
+	/**
+	 * 从算法参数中获取IV
+	 *
+	 * @param params 算法参数
+	 * @return IV
+	 */
+	private static byte[] getIv(AlgorithmParameterSpec params) {
+		if (params instanceof IvParameterSpec) {
+			return ((IvParameterSpec) params).getIV();
+		}
+		throw new IllegalArgumentException("CBC mode requires an IvParameterSpec !");
+	}
+
+	/**
+	 * 缓冲区并行任务，按段序号二分
+	 */
+	private class BufferTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		private final ByteBuffer in;
+		private final ByteBuffer out;
+		private final int inStart;
+		private final int outStart;
+		private final int len;
+		private final byte[][] ivs;
+		private final int from;
+		private final int to;
+
+		BufferTask(ByteBuffer in, ByteBuffer out, int inStart, int outStart, int len, byte[][] ivs, int from, int to) {
+			this.in = in;
+			this.out = out;
+			this.inStart = inStart;
+			this.outStart = outStart;
+			this.len = len;
+			this.ivs = ivs;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected void compute() {
+			if (this.to - this.from > 1) {
+				final int mid = (this.from + this.to) >>> 1;
+				invokeAll(new BufferTask(in, out, inStart, outStart, len, ivs, from, mid),
+						new BufferTask(in, out, inStart, outStart, len, ivs, mid, to));
+				return;
+			}
+			decryptSegment(this.in, this.out, this.inStart, this.outStart, this.len, this.from, this.ivs);
+		}
+	}
+
+	/**
+	 * 文件并行任务，按段序号二分
+	 */
+	private class FileTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		private final FileChannel in;
+		private final FileChannel out;
+		private final long size;
+		private final AtomicLong plainLen;
+		private final long from;
+		private final long to;
+
+		FileTask(FileChannel in, FileChannel out, long size, AtomicLong plainLen, long from, long to) {
+			this.in = in;
+			this.out = out;
+			this.size = size;
+			this.plainLen = plainLen;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected void compute() {
+			if (this.to - this.from > 1) {
+				final long mid = (this.from + this.to) >>> 1;
+				invokeAll(new FileTask(in, out, size, plainLen, from, mid),
+						new FileTask(in, out, size, plainLen, mid, to));
+				return;
+			}
+			final long position = this.from * segmentSize;
+			try {
+				decryptSegment(this.in, this.out, position, Math.min(segmentSize, this.size - position), this.size, this.plainLen);
+			} catch (IOException e) {
+				throw new IORuntimeException(e);
+			}
+		}
+	}
+}
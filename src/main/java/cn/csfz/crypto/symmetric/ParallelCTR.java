@@ -0,0 +1,336 @@
+package cn.csfz.crypto.symmetric;
+
+import cn.csfz.core.io.IORuntimeException;
+import cn.csfz.crypto.CipherPool;
+import cn.csfz.crypto.CipherWrapper;
+import cn.csfz.crypto.CryptoException;
+
+import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.IvParameterSpec;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.security.spec.AlgorithmParameterSpec;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * CTR模式并行加解密，适用于SM4、AES等分组长度为16字节的算法<br>
+ * CTR模式各分组的密钥流只与计数器有关，数据按分组对齐切分为多段，第i段从第n个分组开始时计数器初值为IV + n（128位整数加法），
+ * 各段在{@link ForkJoinPool}中并行处理，结果与顺序处理完全相同。CTR模式加密和解密是同一运算。
+ *
+ * <pre>
+ * SM4 sm4 = new SM4(Mode.CTR, Padding.NoPadding, key, iv);
+ * ParallelCTR ctr = new ParallelCTR(sm4);
+ * ctr.process(in, out);
+ * </pre>
+ *
+ * <p>
+ * 此对象线程安全。
+ *
+ * @since 2.0.0
+ */
+public class ParallelCTR {
+
+	/**
+	 * 默认每段长度（字节）
+	 */
+	public static final int DEFAULT_SEGMENT_SIZE = 1024 * 1024;
+
+	private final SecretKey key;
+	private final byte[] iv;
+	private final int blockSize;
+	private final CipherPool cipherPool;
+
+	private ForkJoinPool pool = ForkJoinPool.commonPool();
+	private int segmentSize = DEFAULT_SEGMENT_SIZE;
+
+	/**
+	 * 构造，使用{@link SymmetricCrypto}的算法、密钥和IV
+	 *
+	 * @param crypto {@link SymmetricCrypto}，须为CTR模式、NoPadding，并设置了IV
+	 */
+	public ParallelCTR(SymmetricCrypto crypto) {
+		this(checkNoPadding(crypto).getCipher().getAlgorithm(), crypto.getSecretKey(), getIv(crypto.getParams()));
+	}
+
+	/**
+	 * 构造
+	 *
+	 * @param algorithm 算法，如"SM4/CTR/NoPadding"
+	 * @param key       密钥
+	 * @param iv        初始计数器，长度须与分组长度相同
+	 */
+	public ParallelCTR(String algorithm, SecretKey key, byte[] iv) {
+		if (false == algorithm.toUpperCase().contains("/CTR/NOPADDING")) {
+			throw new IllegalArgumentException("Only CTR mode with NoPadding is supported, but got: " + algorithm);
+		}
+		this.key = key;
+		this.cipherPool = new CipherPool(algorithm, null, null, CipherPool.DEFAULT_MAX_IDLE);
+		final CipherWrapper wrapper = this.cipherPool.borrow();
+		this.blockSize = wrapper.getCipher().getBlockSize();
+		this.cipherPool.release(wrapper);
+		if (null == iv || iv.length != this.blockSize) {
+			throw new IllegalArgumentException("IV length must be " + this.blockSize + " !");
+		}
+		this.iv = iv.clone();
+	}
+
+	/**
+	 * 设置并行计算使用的{@link ForkJoinPool}，默认为{@link ForkJoinPool#commonPool()}
+	 *
+	 * @param pool {@link ForkJoinPool}
+	 * @return this
+	 */
+	public ParallelCTR setPool(ForkJoinPool pool) {
+		this.pool = pool;
+		return this;
+	}
+
+	/**
+	 * 设置每段长度，会向下对齐到分组长度，数据不超过一段时在当前线程处理
+	 *
+	 * @param segmentSize 每段长度（字节）
+	 * @return this
+	 */
+	public ParallelCTR setSegmentSize(int segmentSize) {
+		if (segmentSize < this.blockSize) {
+			throw new IllegalArgumentException("Segment size must be at least " + this.blockSize + " !");
+		}
+		this.segmentSize = segmentSize - segmentSize % this.blockSize;
+		return this;
+	}
+
+	/**
+	 * 加密
+	 *
+	 * @param data 明文
+	 * @return 密文
+	 */
+	public byte[] encrypt(byte[] data) {
+		final byte[] out = new byte[data.length];
+		process(data, 0, data.length, out, 0);
+		return out;
+	}
+
+	/**
+	 * 解密
+	 *
+	 * @param data 密文
+	 * @return 明文
+	 */
+	public byte[] decrypt(byte[] data) {
+		return encrypt(data);
+	}
+
+	/**
+	 * 加密或解密，结果写入调用方提供的数组，输入和输出可以是同一数组的同一位置
+	 *
+	 * @param in     输入
+	 * @param inOff  输入偏移
+	 * @param len    长度
+	 * @param out    输出
+	 * @param outOff 输出偏移
+	 */
+	public void process(byte[] in, int inOff, int len, byte[] out, int outOff) {
+		if (len <= this.segmentSize) {
+			processSegment(in, inOff, len, out, outOff, 0);
+			return;
+		}
+		final long segments = (len + (long) this.segmentSize - 1) / this.segmentSize;
+		this.pool.invoke(new ArrayTask(in, inOff, len, out, outOff, 0, segments));
+	}
+
+	/**
+	 * 加密或解密文件，从输入的起始位置读取全部数据，写入输出的相同位置<br>
+	 * 各段使用按位置读写，不改变通道的当前位置，通道不会被关闭。
+	 *
+	 * @param in  输入文件通道
+	 * @param out 输出文件通道，可以与输入相同（原地加解密）
+	 * @throws IORuntimeException IO异常
+	 */
+	public void process(FileChannel in, FileChannel out) throws IORuntimeException {
+		final long size;
+		try {
+			size = in.size();
+		} catch (IOException e) {
+			throw new IORuntimeException(e);
+		}
+		final long segments = (size + this.segmentSize - 1) / this.segmentSize;
+		if (segments <= 1) {
+			processSegment(in, out, 0, size);
+			return;
+		}
+		this.pool.invoke(new FileTask(in, out, size, 0, segments));
+	}
+
+	/**
+	 * 处理从0起第offset个字节开始的一段数组数据，offset须为分组长度的整数倍
+	 *
+	 * @param in     输入
+	 * @param inOff  输入偏移
+	 * @param len    长度
+	 * @param out    输出
+	 * @param outOff 输出偏移
+	 * @param offset 此段在整个数据中的位置
+	 */
+	private void processSegment(byte[] in, int inOff, int len, byte[] out, int outOff, long offset) {
+		final CipherWrapper wrapper = this.cipherPool.borrow();
+		try {
+			final Cipher cipher = wrapper.getCipher();
+			cipher.init(Cipher.ENCRYPT_MODE, this.key, new IvParameterSpec(counterAt(offset / this.blockSize)));
+			cipher.doFinal(in, inOff, len, out, outOff);
+		} catch (Exception e) {
+			throw new CryptoException(e);
+		} finally {
+			this.cipherPool.release(wrapper);
+		}
+	}
+
+	/**
+	 * 处理文件中的一段数据
+	 *
+	 * @param in       输入文件通道
+	 * @param out      输出文件通道
+	 * @param position 此段在文件中的位置，须为分组长度的整数倍
+	 * @param len      长度
+	 */
+	private void processSegment(FileChannel in, FileChannel out, long position, long len) {
+		final byte[] buffer = new byte[(int) len];
+		try {
+			final ByteBuffer readBuffer = ByteBuffer.wrap(buffer);
+			while (readBuffer.hasRemaining()) {
+				if (in.read(readBuffer, position + readBuffer.position()) < 0) {
+					throw new IOException("Unexpected end of file at " + (position + readBuffer.position()));
+				}
+			}
+			processSegment(buffer, 0, buffer.length, buffer, 0, position);
+			final ByteBuffer writeBuffer = ByteBuffer.wrap(buffer);
+			while (writeBuffer.hasRemaining()) {
+				out.write(writeBuffer, position + writeBuffer.position());
+			}
+		} catch (IOException e) {
+			throw new IORuntimeException(e);
+		}
+	}
+
+	/**
+	 * 计算第n个分组的计数器：IV + n，按大端128位整数相加，溢出时回绕
+	 *
+	 * @param n 分组序号
+	 * @return 计数器
+	 */
+	private byte[] counterAt(long n) {
+		final byte[] counter = this.iv.clone();
+		int carry = 0;
+		for (int i = counter.length - 1; i >= 0; i--) {
+			final int sum = (counter[i] & 0xff) + (int) (n & 0xff) + carry;
+			counter[i] = (byte) sum;
+			carry = sum >>> 8;
+			n >>>= 8;
+			if (0 == n && 0 == carry) {
+				break;
+			}
+		}
+		return counter;
+	}
+
+	/**
+	 * 检查{@link SymmetricCrypto}未使用ZeroPadding<br>
+	 * ZeroPadding时内部{@link Cipher}为NoPadding，但{@link SymmetricCrypto}加密前会补齐数据，并行结果将与其不一致。
+	 *
+	 * @param crypto {@link SymmetricCrypto}
+	 * @return crypto
+	 */
+	private static SymmetricCrypto checkNoPadding(SymmetricCrypto crypto) {
+		if (crypto.isZeroPadding()) {
+			throw new IllegalArgumentException("Only CTR mode with NoPadding is supported, but got ZeroPadding !");
+		}
+		return crypto;
+	}
+
+	/**
+	 * 从算法参数中获取IV
+	 *
+	 * @param params 算法参数
+	 * @return IV
+	 */
+	private static byte[] getIv(AlgorithmParameterSpec params) {
+		if (params instanceof IvParameterSpec) {
+			return ((IvParameterSpec) params).getIV();
+		}
+		throw new IllegalArgumentException("CTR mode requires an IvParameterSpec !");
+	}
+
+	/**
+	 * 数组并行任务，按段序号二分
+	 */
+	private class ArrayTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		private final byte[] in;
+		private final int inOff;
+		private final int len;
+		private final byte[] out;
+		private final int outOff;
+		private final long from;
+		private final long to;
+
+		ArrayTask(byte[] in, int inOff, int len, byte[] out, int outOff, long from, long to) {
+			this.in = in;
+			this.inOff = inOff;
+			this.len = len;
+			this.out = out;
+			this.outOff = outOff;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected void compute() {
+			if (this.to - this.from > 1) {
+				final long mid = (this.from + this.to) >>> 1;
+				invokeAll(new ArrayTask(in, inOff, len, out, outOff, from, mid),
+						new ArrayTask(in, inOff, len, out, outOff, mid, to));
+				return;
+			}
+			final int offset = (int) (this.from * segmentSize);
+			processSegment(this.in, this.inOff + offset, Math.min(segmentSize, this.len - offset),
+					this.out, this.outOff + offset, offset);
+		}
+	}
+
+	/**
+	 * 文件并行任务，按段序号二分
+	 */
+	private class FileTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		private final FileChannel in;
+		private final FileChannel out;
+		private final long size;
+		private final long from;
+		private final long to;
+
+		FileTask(FileChannel in, FileChannel out, long size, long from, long to) {
+			this.in = in;
+			this.out = out;
+			this.size = size;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected void compute() {
+			if (this.to - this.from > 1) {
+				final long mid = (this.from + this.to) >>> 1;
+				invokeAll(new FileTask(in, out, size, from, mid),
+						new FileTask(in, out, size, mid, to));
+				return;
+			}
+			final long position = this.from * segmentSize;
+			processSegment(this.in, this.out, position, Math.min(segmentSize, this.size - position));
+		}
+	}
+}
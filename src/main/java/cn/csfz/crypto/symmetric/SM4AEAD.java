@@ -0,0 +1,391 @@
+package cn.csfz.crypto.symmetric;
+
+import cn.csfz.core.util.RandomUtil;
+import cn.csfz.crypto.CryptoException;
+import cn.csfz.crypto.Mode;
+import org.bouncycastle.crypto.InvalidCipherTextException;
+import org.bouncycastle.crypto.engines.SM4Engine;
+import org.bouncycastle.crypto.modes.AEADBlockCipher;
+import org.bouncycastle.crypto.modes.CCMBlockCipher;
+import org.bouncycastle.crypto.modes.GCMBlockCipher;
+import org.bouncycastle.crypto.modes.gcm.Tables4kGCMMultiplier;
+import org.bouncycastle.crypto.params.AEADParameters;
+import org.bouncycastle.crypto.params.KeyParameter;
+
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * SM4认证加密（AEAD），支持GCM和CCM模式<br>
+ * 加密和完整性校验在一次处理中完成，无需再单独计算HMAC。密文格式为C || T，T为认证标签，附加数据（AAD）只参与认证，不加密。
+ * GCM使用按H预先计算的4K查找表计算GHASH。
+ *
+ * <pre>
+ * SM4AEAD aead = new SM4AEAD(key);
+ * byte[] nonce = aead.generateNonce();
+ * byte[] encrypted = aead.encrypt(nonce, aad, data);
+ * byte[] decrypted = aead.decrypt(nonce, aad, encrypted);
+ * </pre>
+ *
+ * <p>
+ * 同一密钥下nonce不能重复使用，重复使用时GCM将泄露认证密钥并暴露明文异或值；
+ * 不便管理nonce时可使用{@link #encrypt(byte[], byte[])}，每次随机生成nonce并放在密文前。<br>
+ * 流式处理见{@link #encryptSession(byte[])}和{@link #decryptSession(byte[])}。<br>
+ * 此对象线程安全，内部复用已初始化密钥的{@link AEADBlockCipher}。
+ *
+ * @since 2.0.0
+ */
+public class SM4AEAD {
+
+	/**
+	 * 默认nonce长度（字节）
+	 */
+	public static final int DEFAULT_NONCE_LENGTH = 12;
+	/**
+	 * 默认认证标签长度（字节）
+	 */
+	public static final int DEFAULT_TAG_LENGTH = 16;
+
+	private static final int MAX_IDLE = Math.max(4, Runtime.getRuntime().availableProcessors() * 2);
+
+	private final Mode mode;
+	private final KeyParameter key;
+	private final int tagLength;
+	private final int nonceLength;
+	private SecureRandom random;
+
+	private final Queue<AEADBlockCipher> idle = new ConcurrentLinkedQueue<AEADBlockCipher>();
+
+	/**
+	 * 构造，使用GCM模式、默认nonce长度和标签长度
+	 *
+	 * @param key 密钥，16字节
+	 */
+	public SM4AEAD(byte[] key) {
+		this(Mode.GCM, key);
+	}
+
+	/**
+	 * 构造，使用默认nonce长度和标签长度
+	 *
+	 * @param mode 模式，只支持{@link Mode#GCM}和{@link Mode#CCM}
+	 * @param key  密钥，16字节
+	 */
+	public SM4AEAD(Mode mode, byte[] key) {
+		this(mode, key, DEFAULT_TAG_LENGTH);
+	}
+
+	/**
+	 * 构造
+	 *
+	 * @param mode      模式，只支持{@link Mode#GCM}和{@link Mode#CCM}
+	 * @param key       密钥，16字节
+	 * @param tagLength 认证标签长度（字节），GCM为12~16，CCM为4~16之间的偶数
+	 */
+	public SM4AEAD(Mode mode, byte[] key, int tagLength) {
+		if (Mode.GCM != mode && Mode.CCM != mode) {
+			throw new IllegalArgumentException("Only GCM and CCM mode are supported !");
+		}
+		if (Mode.GCM == mode ? (tagLength < 12 || tagLength > 16) : (tagLength < 4 || tagLength > 16 || (tagLength & 1) != 0)) {
+			throw new IllegalArgumentException("Invalid tag length: " + tagLength);
+		}
+		if (null == key || key.length != 16) {
+			throw new IllegalArgumentException("SM4 key must be 16 bytes !");
+		}
+		this.mode = mode;
+		this.key = new KeyParameter(key);
+		this.tagLength = tagLength;
+		this.nonceLength = DEFAULT_NONCE_LENGTH;
+	}
+
+	/**
+	 * 设置生成nonce使用的随机数生成器
+	 *
+	 * @param random 随机数生成器，{@code null}表示使用默认
+	 * @return this
+	 */
+	public SM4AEAD setRandom(SecureRandom random) {
+		this.random = random;
+		return this;
+	}
+
+	/**
+	 * 获取模式
+	 *
+	 * @return 模式
+	 */
+	public Mode getMode() {
+		return this.mode;
+	}
+
+	/**
+	 * 获取认证标签长度（字节）
+	 *
+	 * @return 认证标签长度
+	 */
+	public int getTagLength() {
+		return this.tagLength;
+	}
+
+	/**
+	 * 随机生成nonce
+	 *
+	 * @return nonce，长度为{@link #DEFAULT_NONCE_LENGTH}
+	 */
+	public byte[] generateNonce() {
+		final byte[] nonce = new byte[this.nonceLength];
+		final SecureRandom random = this.random;
+		if (null != random) {
+			random.nextBytes(nonce);
+		} else {
+			RandomUtil.getSecureRandom().nextBytes(nonce);
+		}
+		return nonce;
+	}
+
+	/**
+	 * 加密
+	 *
+	 * @param nonce     nonce，同一密钥下不能重复
+	 * @param aad       附加数据，只参与认证，可以为{@code null}
+	 * @param plaintext 明文
+	 * @return 密文和认证标签C || T
+	 */
+	public byte[] encrypt(byte[] nonce, byte[] aad, byte[] plaintext) {
+		return process(true, nonce, aad, plaintext, 0, plaintext.length);
+	}
+
+	/**
+	 * 解密并校验认证标签
+	 *
+	 * @param nonce      加密时使用的nonce
+	 * @param aad        附加数据，须与加密时相同，可以为{@code null}
+	 * @param ciphertext 密文和认证标签C || T
+	 * @return 明文
+	 * @throws CryptoException 认证失败，密文、标签、nonce或附加数据被篡改
+	 */
+	public byte[] decrypt(byte[] nonce, byte[] aad, byte[] ciphertext) throws CryptoException {
+		return process(false, nonce, aad, ciphertext, 0, ciphertext.length);
+	}
+
+	/**
+	 * 使用随机nonce加密，nonce放在密文前
+	 *
+	 * @param aad       附加数据，只参与认证，可以为{@code null}
+	 * @param plaintext 明文
+	 * @return nonce || C || T
+	 */
+	public byte[] encrypt(byte[] aad, byte[] plaintext) {
+		final byte[] nonce = generateNonce();
+		final byte[] encrypted = encrypt(nonce, aad, plaintext);
+		final byte[] result = new byte[nonce.length + encrypted.length];
+		System.arraycopy(nonce, 0, result, 0, nonce.length);
+		System.arraycopy(encrypted, 0, result, nonce.length, encrypted.length);
+		return result;
+	}
+
+	/**
+	 * 解密{@link #encrypt(byte[], byte[])}的结果并校验认证标签
+	 *
+	 * @param aad  附加数据，须与加密时相同，可以为{@code null}
+	 * @param data nonce || C || T
+	 * @return 明文
+	 * @throws CryptoException 认证失败或数据长度不足
+	 */
+	public byte[] decrypt(byte[] aad, byte[] data) throws CryptoException {
+		if (data.length < this.nonceLength + this.tagLength) {
+			throw new CryptoException("Data is too short !");
+		}
+		final byte[] nonce = Arrays.copyOfRange(data, 0, this.nonceLength);
+		return process(false, nonce, aad, data, this.nonceLength, data.length - this.nonceLength);
+	}
+
+	/**
+	 * 开始流式加密，附加数据通过{@link Session#updateAAD(byte[])}分段传入，须在明文之前
+	 *
+	 * @param nonce nonce，同一密钥下不能重复
+	 * @return {@link Session}
+	 */
+	public Session encryptSession(byte[] nonce) {
+		return new Session(true, nonce);
+	}
+
+	/**
+	 * 开始流式解密，认证标签在{@link Session#doFinal()}时校验<br>
+	 * GCM模式下{@link Session#update(byte[])}返回的是尚未认证的明文，校验失败时调用方必须丢弃所有已输出的明文；
+	 * CCM模式需要完整数据才能计算，所有明文在{@link Session#doFinal()}校验通过后才输出。
+	 *
+	 * @param nonce 加密时使用的nonce
+	 * @return {@link Session}
+	 */
+	public Session decryptSession(byte[] nonce) {
+		return new Session(false, nonce);
+	}
+
+	/**
+	 * 一次性加密或解密
+	 *
+	 * @param forEncryption 是否加密
+	 * @param nonce         nonce
+	 * @param aad           附加数据
+	 * @param in            输入数据
+	 * @param inOff         输入数据偏移
+	 * @param len           输入数据长度
+	 * @return 结果
+	 */
+	private byte[] process(boolean forEncryption, byte[] nonce, byte[] aad, byte[] in, int inOff, int len) {
+		final AEADBlockCipher cipher = borrow(forEncryption, nonce, aad);
+		try {
+			final byte[] out = new byte[cipher.getOutputSize(len)];
+			int outLen = cipher.processBytes(in, inOff, len, out, 0);
+			outLen += cipher.doFinal(out, outLen);
+			return (outLen == out.length) ? out : Arrays.copyOf(out, outLen);
+		} catch (InvalidCipherTextException e) {
+			throw new CryptoException(e);
+		} finally {
+			release(cipher);
+		}
+	}
+
+	/**
+	 * 借出并初始化{@link AEADBlockCipher}，池中的对象已初始化过密钥，只需重新设置nonce
+	 *
+	 * @param forEncryption 是否加密
+	 * @param nonce         nonce
+	 * @param aad           附加数据，可以为{@code null}
+	 * @return {@link AEADBlockCipher}
+	 */
+	private AEADBlockCipher borrow(boolean forEncryption, byte[] nonce, byte[] aad) {
+		AEADBlockCipher cipher = this.idle.poll();
+		KeyParameter keyParam = null;
+		if (null == cipher) {
+			cipher = (Mode.GCM == this.mode)
+					? new GCMBlockCipher(new SM4Engine(), new Tables4kGCMMultiplier())
+					: new CCMBlockCipher(new SM4Engine());
+			keyParam = this.key;
+		}
+		try {
+			// 密钥为null时复用已展开的轮密钥和GHASH表
+			cipher.init(forEncryption, new AEADParameters(keyParam, this.tagLength * 8, nonce, aad));
+		} catch (IllegalArgumentException e) {
+			// nonce长度不合法或与上次加密的nonce重复，此对象状态不确定，丢弃
+			throw new CryptoException(e);
+		}
+		return cipher;
+	}
+
+	/**
+	 * 归还{@link AEADBlockCipher}
+	 *
+	 * @param cipher {@link AEADBlockCipher}
+	 */
+	private void release(AEADBlockCipher cipher) {
+		if (this.idle.size() < MAX_IDLE) {
+			this.idle.offer(cipher);
+		}
+	}
+
+	/**
+	 * 流式加解密会话，非线程安全，{@link #doFinal()}后结束
+	 */
+	public class Session {
+		private AEADBlockCipher cipher;
+		private boolean dataStarted;
+
+		/**
+		 * 构造
+		 *
+		 * @param forEncryption 是否加密
+		 * @param nonce         nonce
+		 */
+		private Session(boolean forEncryption, byte[] nonce) {
+			this.cipher = borrow(forEncryption, nonce, null);
+		}
+
+		/**
+		 * 追加附加数据，须在{@link #update(byte[])}之前调用，可多次调用
+		 *
+		 * @param aad 附加数据
+		 * @return this
+		 */
+		public Session updateAAD(byte[] aad) {
+			return updateAAD(aad, 0, aad.length);
+		}
+
+		/**
+		 * 追加附加数据，须在{@link #update(byte[], int, int)}之前调用，可多次调用
+		 *
+		 * @param aad 附加数据
+		 * @param off 偏移
+		 * @param len 长度
+		 * @return this
+		 */
+		public Session updateAAD(byte[] aad, int off, int len) {
+			checkActive();
+			if (this.dataStarted) {
+				throw new IllegalStateException("AAD must be supplied before data !");
+			}
+			this.cipher.processAADBytes(aad, off, len);
+			return this;
+		}
+
+		/**
+		 * 处理数据
+		 *
+		 * @param data 明文或密文
+		 * @return 本次输出的密文或明文，可能为空数组
+		 */
+		public byte[] update(byte[] data) {
+			return update(data, 0, data.length);
+		}
+
+		/**
+		 * 处理数据
+		 *
+		 * @param data 明文或密文
+		 * @param off  偏移
+		 * @param len  长度
+		 * @return 本次输出的密文或明文，可能为空数组
+		 */
+		public byte[] update(byte[] data, int off, int len) {
+			checkActive();
+			this.dataStarted = true;
+			final byte[] out = new byte[this.cipher.getUpdateOutputSize(len)];
+			final int outLen = this.cipher.processBytes(data, off, len, out, 0);
+			return (outLen == out.length) ? out : Arrays.copyOf(out, outLen);
+		}
+
+		/**
+		 * 结束处理，加密时输出剩余密文和认证标签，解密时校验认证标签并输出剩余明文
+		 *
+		 * @return 剩余输出
+		 * @throws CryptoException 解密时认证失败
+		 */
+		public byte[] doFinal() throws CryptoException {
+			checkActive();
+			final AEADBlockCipher cipher = this.cipher;
+			this.cipher = null;
+			try {
+				final byte[] out = new byte[cipher.getOutputSize(0)];
+				final int outLen = cipher.doFinal(out, 0);
+				return (outLen == out.length) ? out : Arrays.copyOf(out, outLen);
+			} catch (InvalidCipherTextException e) {
+				throw new CryptoException(e);
+			} finally {
+				// 下次借出时会重新初始化，失败的对象也可复用
+				release(cipher);
+			}
+		}
+
+		/**
+		 * 检查会话是否已结束
+		 */
+		private void checkActive() {
+			if (null == this.cipher) {
+				throw new IllegalStateException("Session has been finished !");
+			}
+		}
+	}
+}
@@ -46,6 +46,14 @@ public class SymmetricCrypto implements SymmetricEncryptor, SymmetricDecryptor,
 	 */
 	private boolean isZeroPadding;
 	private final Lock lock = new ReentrantLock();
+	/**
+	 * 并发模式下的{@link CipherWrapper}对象池，为{@code null}表示非并发模式
+	 */
+	private transient volatile CipherPool cipherPool;
+	/**
+	 * 是否复用固定IV的CBC初始化状态
+	 */
+	private boolean reuseFixedIv;
 
 	// ------------------------------------------------------------------ Constructor start
 
@@ -140,7 +148,8 @@ public class SymmetricCrypto implements SymmetricEncryptor, SymmetricDecryptor,
 			this.isZeroPadding = true;
 		}
 
-		this.cipherWrapper = new CipherWrapper(algorithm);
+		this.cipherWrapper = new CipherWrapper(algorithm).setReuseFixedParams(this.reuseFixedIv);
+		resetPool();
 		return this;
 	}
 
@@ -162,6 +171,26 @@ public class SymmetricCrypto implements SymmetricEncryptor, SymmetricDecryptor,
 		return cipherWrapper.getCipher();
 	}
 
+	/**
+	 * 是否为{@link Padding#ZeroPadding}，此时{@link #getCipher()}实际使用NoPadding，补0和去0由此对象处理
+	 *
+	 * @return 是否为ZeroPadding
+	 * @since 2.0.0
+	 */
+	public boolean isZeroPadding() {
+		return this.isZeroPadding;
+	}
+
+	/**
+	 * 获取{@link AlgorithmParameterSpec}，如偏移向量
+	 *
+	 * @return {@link AlgorithmParameterSpec}，未设置返回{@code null}
+	 * @since 2.0.0
+	 */
+	public AlgorithmParameterSpec getParams() {
+		return this.cipherWrapper.getParams();
+	}
+
 	/**
 	 * 设置 {@link AlgorithmParameterSpec}，通常用于加盐或偏移向量
 	 *
@@ -170,6 +199,7 @@ public class SymmetricCrypto implements SymmetricEncryptor, SymmetricDecryptor,
 	 */
 	public SymmetricCrypto setParams(AlgorithmParameterSpec params) {
 		this.cipherWrapper.setParams(params);
+		resetPool();
 		return this;
 	}
 
@@ -202,9 +232,64 @@ public class SymmetricCrypto implements SymmetricEncryptor, SymmetricDecryptor,
 	 */
 	public SymmetricCrypto setRandom(SecureRandom random){
 		this.cipherWrapper.setRandom(random);
+		resetPool();
 		return this;
 	}
 
+	/**
+	 * 设置是否复用固定IV的CBC初始化状态<br>
+	 * 开启后，密钥、IV和加解密模式与上次相同时跳过{@link Cipher}的重新初始化（密钥扩展），适用于大量短数据的加解密。
+	 * 每次加解密的结果与关闭时相同。ECB等不使用IV的模式默认复用，随机IV和GCM等AEAD模式始终重新初始化。
+	 *
+	 * @param reuseFixedIv 是否复用
+	 * @return this
+	 * @see CipherWrapper#setReuseFixedParams(boolean)
+	 * @since 2.0.0
+	 */
+	public SymmetricCrypto setReuseFixedIv(boolean reuseFixedIv) {
+		this.reuseFixedIv = reuseFixedIv;
+		this.cipherWrapper.setReuseFixedParams(reuseFixedIv);
+		resetPool();
+		return this;
+	}
+
+	/**
+	 * 设置是否为并发模式<br>
+	 * 默认模式下所有加解密操作共用一个{@link Cipher}，并使用锁串行执行；<br>
+	 * 并发模式下密钥和参数在多个线程间共享，每次加解密从{@link CipherPool}中借出独立的{@link Cipher}，操作不再加锁，
+	 * 因此一个对象即可被多个线程（包括虚拟线程）同时使用。<br>
+	 * {@link #setMode(CipherMode)}和{@link #update(byte[])}为有状态操作，始终使用加锁的{@link Cipher}。
+	 *
+	 * @param concurrent 是否为并发模式
+	 * @return this
+	 * @since 2.0.0
+	 */
+	public SymmetricCrypto setConcurrent(boolean concurrent) {
+		this.cipherPool = concurrent ? createPool() : null;
+		return this;
+	}
+
+	/**
+	 * 是否为并发模式
+	 *
+	 * @return 是否为并发模式
+	 * @see #setConcurrent(boolean)
+	 * @since 2.0.0
+	 */
+	public boolean isConcurrent() {
+		return null != this.cipherPool;
+	}
+
+	/**
+	 * 获取并发模式下的{@link CipherPool}，可用于查看争用情况
+	 *
+	 * @return {@link CipherPool}，非并发模式返回{@code null}
+	 * @since 2.0.0
+	 */
+	public CipherPool getCipherPool() {
+		return this.cipherPool;
+	}
+
 	// --------------------------------------------------------------------------------- Update
 
 	/**
@@ -217,6 +302,8 @@ public class SymmetricCrypto implements SymmetricEncryptor, SymmetricDecryptor,
 	public SymmetricCrypto setMode(CipherMode mode){
 		lock.lock();
 		try {
+			// 之后可能分段update，需重新初始化
+			this.cipherWrapper.invalidate();
 			initMode(mode.getValue());
 		} catch (Exception e) {
 			throw new CryptoException(e);
@@ -238,6 +325,8 @@ public class SymmetricCrypto implements SymmetricEncryptor, SymmetricDecryptor,
 		final Cipher cipher = cipherWrapper.getCipher();
 		lock.lock();
 		try {
+			// update后Cipher处于中间状态，下次加解密时需重新初始化
+			this.cipherWrapper.invalidate();
 			return cipher.update(paddingDataWithZero(data, cipher.getBlockSize()));
 		} catch (Exception e) {
 			throw new CryptoException(e);
@@ -262,23 +351,26 @@ public class SymmetricCrypto implements SymmetricEncryptor, SymmetricDecryptor,
 
 	@Override
 	public byte[] encrypt(byte[] data) {
-		lock.lock();
+		final CipherPool pool = this.cipherPool;
+		final CipherWrapper wrapper = acquire(pool);
 		try {
-			final Cipher cipher = initMode(Cipher.ENCRYPT_MODE);
+			final Cipher cipher = initMode(wrapper, Cipher.ENCRYPT_MODE);
 			return cipher.doFinal(paddingDataWithZero(data, cipher.getBlockSize()));
 		} catch (Exception e) {
+			wrapper.invalidate();
 			throw new CryptoException(e);
 		} finally {
-			lock.unlock();
+			release(pool, wrapper);
 		}
 	}
 
 	@Override
 	public void encrypt(InputStream data, OutputStream out, boolean isClose) throws IORuntimeException {
-		lock.lock();
+		final CipherPool pool = this.cipherPool;
+		final CipherWrapper wrapper = acquire(pool);
 		CipherOutputStream cipherOutputStream = null;
 		try {
-			final Cipher cipher = initMode(Cipher.ENCRYPT_MODE);
+			final Cipher cipher = initMode(wrapper, Cipher.ENCRYPT_MODE);
 			cipherOutputStream = new CipherOutputStream(out, cipher);
 			long length = IoUtil.copy(data, cipherOutputStream);
 			if (this.isZeroPadding) {
@@ -298,13 +390,15 @@ public class SymmetricCrypto implements SymmetricEncryptor, SymmetricDecryptor,
 		} catch (Exception e) {
 			throw new CryptoException(e);
 		} finally {
-			lock.unlock();
 			// issue#I4EMST@Gitee
 			// CipherOutputStream必须关闭，才能完全写出
 			IoUtil.close(cipherOutputStream);
 			if (isClose) {
 				IoUtil.close(data);
 			}
+			// 关闭流时仍会使用Cipher，关闭后再释放；流可能未完整读写，Cipher状态不可复用
+			wrapper.invalidate();
+			release(pool, wrapper);
 		}
 	}
 
@@ -315,15 +409,17 @@ public class SymmetricCrypto implements SymmetricEncryptor, SymmetricDecryptor,
 		final int blockSize;
 		final byte[] decryptData;
 
-		lock.lock();
+		final CipherPool pool = this.cipherPool;
+		final CipherWrapper wrapper = acquire(pool);
 		try {
-			final Cipher cipher = initMode(Cipher.DECRYPT_MODE);
+			final Cipher cipher = initMode(wrapper, Cipher.DECRYPT_MODE);
 			blockSize = cipher.getBlockSize();
 			decryptData = cipher.doFinal(bytes);
 		} catch (Exception e) {
+			wrapper.invalidate();
 			throw new CryptoException(e);
 		} finally {
-			lock.unlock();
+			release(pool, wrapper);
 		}
 
 		return removePadding(decryptData, blockSize);
@@ -331,10 +427,11 @@ public class SymmetricCrypto implements SymmetricEncryptor, SymmetricDecryptor,
 
 	@Override
 	public void decrypt(InputStream data, OutputStream out, boolean isClose) throws IORuntimeException {
-		lock.lock();
+		final CipherPool pool = this.cipherPool;
+		final CipherWrapper wrapper = acquire(pool);
 		CipherInputStream cipherInputStream = null;
 		try {
-			final Cipher cipher = initMode(Cipher.DECRYPT_MODE);
+			final Cipher cipher = initMode(wrapper, Cipher.DECRYPT_MODE);
 			cipherInputStream = new CipherInputStream(data, cipher);
 			if (this.isZeroPadding) {
 				final int blockSize = cipher.getBlockSize();
@@ -351,13 +448,14 @@ public class SymmetricCrypto implements SymmetricEncryptor, SymmetricDecryptor,
 		} catch (Exception e) {
 			throw new CryptoException(e);
 		} finally {
-			lock.unlock();
 			// issue#I4EMST@Gitee
 			// CipherOutputStream必须关闭，才能完全写出
 			IoUtil.close(cipherInputStream);
 			if (isClose) {
 				IoUtil.close(data);
 			}
+			wrapper.invalidate();
+			release(pool, wrapper);
 		}
 	}
 
@@ -403,7 +501,68 @@ public class SymmetricCrypto implements SymmetricEncryptor, SymmetricDecryptor,
 	 * @throws InvalidAlgorithmParameterException 无效算法
 	 */
 	private Cipher initMode(int mode) throws InvalidKeyException, InvalidAlgorithmParameterException {
-		return this.cipherWrapper.initMode(mode, this.secretKey).getCipher();
+		return initMode(this.cipherWrapper, mode);
+	}
+
+	/**
+	 * 初始化指定的{@link CipherWrapper}为加密或者解密模式
+	 *
+	 * @param wrapper {@link CipherWrapper}
+	 * @param mode    模式，见{@link Cipher#ENCRYPT_MODE} 或 {@link Cipher#DECRYPT_MODE}
+	 * @return {@link Cipher}
+	 * @throws InvalidKeyException                无效key
+	 * @throws InvalidAlgorithmParameterException 无效算法
+	 */
+	private Cipher initMode(CipherWrapper wrapper, int mode) throws InvalidKeyException, InvalidAlgorithmParameterException {
+		return wrapper.initMode(mode, this.secretKey).getCipher();
+	}
+
+	/**
+	 * 获取用于本次加解密的{@link CipherWrapper}，并发模式下从池中借出，否则加锁并返回共用的对象
+	 *
+	 * @param pool {@link CipherPool}，{@code null}表示非并发模式
+	 * @return {@link CipherWrapper}
+	 */
+	private CipherWrapper acquire(CipherPool pool) {
+		if (null != pool) {
+			return pool.borrow();
+		}
+		lock.lock();
+		return this.cipherWrapper;
+	}
+
+	/**
+	 * 释放{@link #acquire(CipherPool)}获得的{@link CipherWrapper}
+	 *
+	 * @param pool    {@link CipherPool}，{@code null}表示非并发模式
+	 * @param wrapper {@link CipherWrapper}
+	 */
+	private void release(CipherPool pool, CipherWrapper wrapper) {
+		if (null != pool) {
+			pool.release(wrapper);
+		} else {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * 创建{@link CipherPool}，使用当前的算法、参数和随机数生成器
+	 *
+	 * @return {@link CipherPool}
+	 */
+	private CipherPool createPool() {
+		final CipherWrapper wrapper = this.cipherWrapper;
+		return new CipherPool(wrapper.getCipher().getAlgorithm(), wrapper.getParams(), wrapper.getRandom(), CipherPool.DEFAULT_MAX_IDLE)
+				.setReuseFixedParams(this.reuseFixedIv);
+	}
+
+	/**
+	 * 并发模式下参数变化后重建{@link CipherPool}，池中已有对象使用旧参数，直接丢弃
+	 */
+	private void resetPool() {
+		if (null != this.cipherPool) {
+			this.cipherPool = createPool();
+		}
 	}
 
 	/**